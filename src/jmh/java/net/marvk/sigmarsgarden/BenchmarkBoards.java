@@ -0,0 +1,49 @@
+package net.marvk.sigmarsgarden;
+
+import nu.pattern.OpenCV;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed boards shared by the benchmarks, generated from constant seeds so every run measures the same deals
+ */
+final class BenchmarkBoards {
+    static final long SEED = 0x5161_3A25L;
+
+    private BenchmarkBoards() {
+        throw new AssertionError("No instances of utility class " + BenchmarkBoards.class);
+    }
+
+    /**
+     * Tile loads its templates through OpenCV, so the native library has to be loaded before any board is created
+     */
+    static void init() {
+        OpenCV.loadLocally();
+    }
+
+    static List<Board> corpus(final int size) {
+        final DealGenerator generator = new DealGenerator(SEED);
+        final List<Board> result = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            result.add(generator.next());
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the board after playing the first {@code moves} moves of a solution of the deal
+     */
+    static Board afterMoves(final Board deal, final int moves) throws InterruptedException {
+        final List<Board.Move> solution = new BoardSolver().solve(deal.copy());
+        final Board result = deal.copy();
+
+        for (final Board.Move move : solution.subList(0, Math.min(moves, solution.size()))) {
+            result.doMove(move);
+        }
+
+        return result;
+    }
+}
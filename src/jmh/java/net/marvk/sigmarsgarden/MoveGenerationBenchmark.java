@@ -0,0 +1,76 @@
+package net.marvk.sigmarsgarden;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+    public enum Phase {
+        EARLY(0),
+        MID(10),
+        LATE(20);
+
+        private final int moves;
+
+        Phase(final int moves) {
+            this.moves = moves;
+        }
+    }
+
+    @Param
+    public Phase phase;
+
+    private Board board;
+    private Board.Move move;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        BenchmarkBoards.init();
+
+        board = BenchmarkBoards.afterMoves(BenchmarkBoards.corpus(1).get(0), phase.moves);
+        move = board.validMoves().get(0);
+    }
+
+    @Benchmark
+    public List<Board.Move> validMoves() {
+        return board.validMoves();
+    }
+
+    @Benchmark
+    public List<Hex> playableHexes() {
+        return board.playableHexes();
+    }
+
+    @Benchmark
+    public int numPlayable() {
+        return board.numPlayable();
+    }
+
+    @Benchmark
+    public List<Board.Move> heuristicOrdering() {
+        return MoveOrdering.heuristic().order(board, board.validMoves());
+    }
+
+    /**
+     * Doing and undoing a move covers the incremental Zobrist hash, bitboard and count updates
+     */
+    @Benchmark
+    public long doUndoMoveHash() {
+        board.doMove(move);
+        final long hash = board.hash();
+        board.undoMove(move);
+        return hash;
+    }
+
+    @Benchmark
+    public boolean feasibility() {
+        return FeasibilityChecker.isFeasible(board);
+    }
+}
@@ -0,0 +1,52 @@
+package net.marvk.sigmarsgarden;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves a fixed corpus of generated deals, one operation being the whole corpus
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolverBenchmark {
+    @Param("32")
+    public int corpusSize;
+
+    /**
+     * {@code natural} or {@code heuristic}, the natural ordering takes minutes on some deals of the default corpus
+     */
+    @Param("heuristic")
+    public String ordering;
+
+    @Param("1")
+    public int parallelism;
+
+    private List<Board> corpus;
+    private TranspositionTable transpositions;
+
+    @Setup
+    public void setup() {
+        BenchmarkBoards.init();
+
+        corpus = BenchmarkBoards.corpus(corpusSize);
+        transpositions = new TranspositionTable();
+    }
+
+    @Benchmark
+    public int solveCorpus() throws InterruptedException {
+        int moves = 0;
+
+        for (final Board deal : corpus) {
+            final MoveOrdering moveOrdering = "heuristic".equals(ordering) ? MoveOrdering.heuristic() : MoveOrdering.natural();
+            moves += new BoardSolver(transpositions, parallelism, moveOrdering).solve(deal.copy()).size();
+        }
+
+        return moves;
+    }
+}
@@ -0,0 +1,65 @@
+package net.marvk.sigmarsgarden;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads boards from saved full screen captures, as written by {@link BoardRobot} to {@code solved_boards}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class VisionBenchmark {
+    @Param("solved_boards")
+    public String captures;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private List<BufferedImage> images;
+    private BoardVision vision;
+    private int next = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkBoards.init();
+
+        final List<Path> paths;
+
+        try (final Stream<Path> files = Files.list(Paths.get(captures))) {
+            paths = files.filter(path -> path.toString().endsWith(".png")).sorted().collect(Collectors.toList());
+        }
+
+        if (paths.isEmpty()) {
+            throw new IllegalStateException("No captures found in " + captures);
+        }
+
+        images = new ArrayList<>(paths.size());
+
+        for (final Path path : paths) {
+            images.add(ImageUtil.loadImageMonochrome(path));
+        }
+
+        vision = new BoardVision(parallelism);
+    }
+
+    @Benchmark
+    public Board readBoard() {
+        final BufferedImage image = images.get(next);
+        next = (next + 1) % images.size();
+        return vision.readBoard(image);
+    }
+}
@@ -0,0 +1,127 @@
+package net.marvk.sigmarsgarden;
+
+import nu.pattern.OpenCV;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Solves every board of a board file without a screen, one board per core.
+ * <p>
+ * Boards are streamed from the file and at most {@value #BOARDS_IN_FLIGHT_PER_THREAD} boards per thread are queued
+ * ahead of the output, so memory does not grow with the size of the file. Every thread reuses one transposition table,
+ * cleared before each board.
+ * <p>
+ * Writes one tab separated line per board to the output file, in input order: the board number, the status
+ * ({@code solved}, {@code unsolvable} or {@code budget_exhausted}, see {@link SolverResult.Status}), the time taken in
+ * milliseconds, the number of iterations and the solution in {@link BoardFormat#formatSolution(List)} format.
+ * <p>
+ * Usage: {@code BatchSolver <board file> <output file> [threads] [timeout seconds]}
+ */
+public class BatchSolver {
+    private static final long TRANSPOSITION_TABLE_BYTES = 8L * 1024 * 1024;
+
+    private static final int BOARDS_IN_FLIGHT_PER_THREAD = 4;
+
+    private final int threads;
+    private final Duration timeout;
+    private final ThreadLocal<TranspositionTable> transpositions = ThreadLocal.withInitial(() -> new TranspositionTable(TRANSPOSITION_TABLE_BYTES));
+
+    public BatchSolver(final int threads, final Duration timeout) {
+        this.threads = threads;
+        this.timeout = timeout;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchSolver <board file> <output file> [threads] [timeout seconds]");
+            System.exit(1);
+        }
+
+        OpenCV.loadLocally();
+
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        final Duration timeout = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 10);
+
+        new BatchSolver(threads, timeout).solve(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    public void solve(final Path input, final Path output) throws IOException, InterruptedException {
+        System.out.println("SOLVING BOARDS OF %s ON %d THREADS...".formatted(input, threads));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final int maxInFlight = threads * BOARDS_IN_FLIGHT_PER_THREAD;
+
+        final long start = System.nanoTime();
+        int boards = 0;
+        int solved = 0;
+
+        try (
+                final Stream<Board> deals = BoardFormat.lines(input);
+                final BufferedWriter writer = Files.newBufferedWriter(output)
+        ) {
+            final Deque<Future<SolverResult>> inFlight = new ArrayDeque<>(maxInFlight);
+            final Iterator<Board> iterator = deals.iterator();
+
+            while (iterator.hasNext() || !inFlight.isEmpty()) {
+                if (iterator.hasNext() && inFlight.size() < maxInFlight) {
+                    final Board board = iterator.next();
+                    inFlight.add(executor.submit(() -> solve(board)));
+                    continue;
+                }
+
+                final SolverResult result = result(inFlight.remove());
+
+                if (result.isSolved()) {
+                    solved++;
+                }
+
+                final String status = result.getStatus().name().toLowerCase(Locale.ROOT);
+                final String solution = BoardFormat.formatSolution(result.getSolution());
+
+                writer.write("%d\t%s\t%d\t%d\t%s".formatted(boards, status, result.getDuration().toMillis(), result.getIterations(), solution));
+                writer.newLine();
+
+                boards++;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        final double boardsPerSecond = boards / Math.max(duration.toNanos() / 1e9, 1e-9);
+
+        System.out.println("SOLVED %d OF %d BOARDS IN %s (%.1f BOARDS/S)".formatted(solved, boards, duration, boardsPerSecond));
+    }
+
+    private SolverResult solve(final Board board) throws InterruptedException {
+        final TranspositionTable transpositions = this.transpositions.get();
+        transpositions.clear();
+
+        final BoardSolver solver = new BoardSolver(transpositions, 1, MoveOrdering.heuristic());
+
+        return solver.solve(board, SolverBudget.unlimited().withTime(timeout));
+    }
+
+    private static SolverResult result(final Future<SolverResult> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Batch solve failed", e.getCause());
+        }
+    }
+}
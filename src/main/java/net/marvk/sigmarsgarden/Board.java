@@ -3,249 +3,384 @@ package net.marvk.sigmarsgarden;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.SplittableRandom;
 
 public class Board {
     private static final Tile[] ELEMENTS = {Tile.FIRE, Tile.WATER, Tile.AIR, Tile.EARTH};
     private static final Tile[] METALS = {Tile.TIN, Tile.LEAD, Tile.IRON, Tile.COPPER, Tile.SILVER, Tile.GOLD};
 
-    private final Tile[][] board;
+    private static final int DIRECTIONS = 6;
 
-    public Board(final Tile[][] board) {
-        this.board = board;
-    }
+    private static final long HI_MASK = (1L << (Hex.COUNT - 64)) - 1;
 
-    public Hash hash() {
-        return new Hash();
-    }
+    /**
+     * Random keys for every tile on every hex, empty hexes contribute nothing to the hash
+     */
+    private static final long[][] ZOBRIST = new long[Hex.COUNT][Tile.values().length];
 
-    public boolean isSolved() {
-        for (final Tile[] tiles : board) {
-            for (final Tile tile : tiles) {
+    static {
+        final SplittableRandom random = new SplittableRandom(0x5167_3A45_6172_6465L);
+
+        for (final long[] keys : ZOBRIST) {
+            for (final Tile tile : Tile.values()) {
                 if (tile != Tile.EMPTY) {
-                    return false;
+                    keys[tile.ordinal()] = random.nextLong();
                 }
             }
         }
+    }
+
+    private final Tile[] cells = new Tile[Hex.COUNT];
+
+    private long occupiedLo;
+    private long occupiedHi;
+
+    private final long[] tilesLo = new long[Tile.values().length];
+    private final long[] tilesHi = new long[Tile.values().length];
+
+    /**
+     * For every neighbour direction, the hexes whose neighbour in that direction is empty or off the board. Kept up to
+     * date by every {@link #set(int, Tile)}, so the free hexes of the whole board are a few ANDs and ORs over these.
+     */
+    private final long[] freeLo = new long[DIRECTIONS];
+    private final long[] freeHi = new long[DIRECTIONS];
 
-        return true;
+    private final int[] counts = new int[Tile.values().length];
+
+    private long hash;
+
+    public Board(final Tile[][] board) {
+        tilesLo[Tile.EMPTY.ordinal()] = -1L;
+        tilesHi[Tile.EMPTY.ordinal()] = HI_MASK;
+        counts[Tile.EMPTY.ordinal()] = Hex.COUNT;
+        Arrays.fill(freeLo, -1L);
+        Arrays.fill(freeHi, HI_MASK);
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            final Hex hex = Hex.fromIndex(index);
+
+            cells[index] = Tile.EMPTY;
+            set(index, board[hex.getArrayY()][hex.getArrayX()]);
+        }
     }
 
-    public int numTiles() {
-        int sum = 0;
+    private Board(final Board board) {
+        System.arraycopy(board.cells, 0, cells, 0, cells.length);
+        System.arraycopy(board.tilesLo, 0, tilesLo, 0, tilesLo.length);
+        System.arraycopy(board.tilesHi, 0, tilesHi, 0, tilesHi.length);
+        System.arraycopy(board.counts, 0, counts, 0, counts.length);
+        System.arraycopy(board.freeLo, 0, freeLo, 0, freeLo.length);
+        System.arraycopy(board.freeHi, 0, freeHi, 0, freeHi.length);
+        this.occupiedLo = board.occupiedLo;
+        this.occupiedHi = board.occupiedHi;
+        this.hash = board.hash;
+    }
 
-        for (final Tile[] tiles : board) {
-            for (final Tile tile : tiles) {
-                if (tile != Tile.EMPTY) {
-                    sum++;
-                }
-            }
+    public static Board empty() {
+        final Tile[][] tiles = new Tile[Hex.ROWS][];
+
+        for (int y = 0; y < Hex.ROWS; y++) {
+            tiles[y] = new Tile[Hex.rowLength(y)];
+            Arrays.fill(tiles[y], Tile.EMPTY);
         }
 
-        return sum;
+        return new Board(tiles);
     }
 
-    public List<Hex> playableHexes() {
-        final List<Hex> result = new ArrayList<>();
+    public Board copy() {
+        return new Board(this);
+    }
 
-        for (int y = 0; y < board.length; y++) {
-            final Tile[] tiles = board[y];
+    /**
+     * @return the Zobrist hash of the tiles on this board, kept up to date by every {@link #set(int, Tile)}
+     */
+    public long hash() {
+        return hash;
+    }
 
-            for (int x = 0; x < tiles.length; x++) {
-                final Tile tile = tiles[x];
+    public boolean isSolved() {
+        return occupiedLo == 0 && occupiedHi == 0;
+    }
 
-                if (tile == Tile.EMPTY) {
-                    continue;
-                }
+    public int numTiles() {
+        return Long.bitCount(occupiedLo) + Long.bitCount(occupiedHi);
+    }
 
-                final Hex hex = Hex.fromArrayCoords(x, y);
+    public int numPlayable() {
+        return Long.bitCount(playableLo()) + Long.bitCount(playableHi());
+    }
 
-                if (isPlayable(hex)) {
-                    result.add(hex);
-                }
-            }
+    public List<Hex> playableHexes() {
+        final int[] indices = indices(playableLo(), playableHi());
+        final List<Hex> result = new ArrayList<>(indices.length);
+
+        for (final int index : indices) {
+            result.add(Hex.fromIndex(index));
         }
 
         return result;
     }
 
-    public Tile get(final Hex hex) {
-        return board[hex.getArrayY()][hex.getArrayX()];
+    private long playableLo() {
+        return occupiedLo & freeWindows(freeLo) & ~blockedMetals(tilesLo);
     }
 
-    public void set(final Hex hex, final Tile tile) {
-        board[hex.getArrayY()][hex.getArrayX()] = tile;
+    private long playableHi() {
+        return occupiedHi & freeWindows(freeHi) & ~blockedMetals(tilesHi);
     }
 
-    public boolean has(final Tile query) {
-        return Arrays.stream(board).flatMap(Arrays::stream).anyMatch(tile -> query == tile);
-    }
+    /**
+     * @return the hexes with three consecutive neighbours that are empty or off the board
+     */
+    private static long freeWindows(final long[] free) {
+        long result = 0L;
 
-    private boolean isPlayable(final Hex hex) {
-        final boolean[] freeNeighbours = freeNeighbours(hex);
+        for (int i = 0; i < DIRECTIONS; i++) {
+            result |= free[i] & free[(i + 1) % DIRECTIONS] & free[(i + 2) % DIRECTIONS];
+        }
+
+        return result;
+    }
 
-        boolean result = false;
+    private long blockedMetals(final long[] tiles) {
+        long result = 0L;
 
-        for (int i = 0; i < 6; i++) {
-            boolean current = true;
+        for (final Tile metal : METALS) {
+            final Tile requirement = metal.getRequirement();
 
-            for (int j = 0; j < 3; j++) {
-                current &= freeNeighbours[(i + j) % 6];
+            if (requirement != null && has(requirement)) {
+                result |= tiles[metal.ordinal()];
             }
+        }
 
-            result |= current;
+        return result;
+    }
+
+    private static int[] indices(final long lo, final long hi) {
+        final int[] result = new int[Long.bitCount(lo) + Long.bitCount(hi)];
+
+        int i = 0;
+
+        for (long remaining = lo; remaining != 0; remaining &= remaining - 1) {
+            result[i++] = Long.numberOfTrailingZeros(remaining);
         }
 
-        if (result && isBlockedMetal(hex)) {
-            return false;
+        for (long remaining = hi; remaining != 0; remaining &= remaining - 1) {
+            result[i++] = Long.numberOfTrailingZeros(remaining) + 64;
         }
 
         return result;
     }
 
-    private boolean isBlockedMetal(final Hex hex) {
-        final Tile requirement = get(hex).getRequirement();
-
-        if (requirement != null) {
-            return has(requirement);
-        }
+    public Tile get(final Hex hex) {
+        return get(hex.getIndex());
+    }
 
-        return false;
+    public Tile get(final int index) {
+        return cells[index];
     }
 
-    private boolean[] freeNeighbours(final Hex hex) {
-        final boolean[] freeNeighbours = new boolean[6];
+    public void set(final Hex hex, final Tile tile) {
+        set(hex.getIndex(), tile);
+    }
 
-        final Hex[] neighbours = hex.neighbours();
-        for (int i = 0; i < neighbours.length; i++) {
-            final Hex neighbour = neighbours[i];
+    public void set(final int index, final Tile tile) {
+        final int previous = cells[index].ordinal();
+        final int next = tile.ordinal();
+
+        cells[index] = tile;
+        hash ^= ZOBRIST[index][previous] ^ ZOBRIST[index][next];
+        counts[previous]--;
+        counts[next]++;
+
+        if (index < 64) {
+            final long bit = 1L << index;
+            tilesLo[previous] &= ~bit;
+            tilesLo[next] |= bit;
+            occupiedLo = tile == Tile.EMPTY ? occupiedLo & ~bit : occupiedLo | bit;
+        } else {
+            final long bit = 1L << (index - 64);
+            tilesHi[previous] &= ~bit;
+            tilesHi[next] |= bit;
+            occupiedHi = tile == Tile.EMPTY ? occupiedHi & ~bit : occupiedHi | bit;
+        }
 
-            final int arrayX = neighbour.getArrayX();
-            final int arrayY = neighbour.getArrayY();
+        if ((previous == Tile.EMPTY.ordinal()) != (tile == Tile.EMPTY)) {
+            updateFree(index, tile == Tile.EMPTY);
+        }
+    }
 
-            if (arrayY < 0 || arrayY >= board.length) {
-                freeNeighbours[i] = true;
-                continue;
-            }
+    /**
+     * Marks the hex as free or occupied as a neighbour of the six hexes around it. The hex is the neighbour in direction
+     * {@code d} of its neighbour in the opposite direction {@code d + 3}.
+     */
+    private void updateFree(final int index, final boolean free) {
+        final Hex hex = Hex.fromIndex(index);
 
-            final Tile[] row = board[arrayY];
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            final int neighbour = hex.neighbourIndex((direction + DIRECTIONS / 2) % DIRECTIONS);
 
-            if (arrayX < 0 || arrayX >= row.length) {
-                freeNeighbours[i] = true;
+            if (neighbour == Hex.OFF_BOARD) {
                 continue;
             }
 
-            if (row[arrayX] == Tile.EMPTY) {
-                freeNeighbours[i] = true;
+            if (neighbour < 64) {
+                final long bit = 1L << neighbour;
+                freeLo[direction] = free ? freeLo[direction] | bit : freeLo[direction] & ~bit;
+            } else {
+                final long bit = 1L << (neighbour - 64);
+                freeHi[direction] = free ? freeHi[direction] | bit : freeHi[direction] & ~bit;
             }
         }
-        return freeNeighbours;
     }
 
-    public List<Move> validMoves() {
-        final List<Move> result = new ArrayList<>();
+    /**
+     * @return the number of hexes holding the tile, kept up to date by every {@link #set(int, Tile)}
+     */
+    public int count(final Tile tile) {
+        return counts[tile.ordinal()];
+    }
 
-        final List<Hex> hexes = playableHexes();
+    public boolean has(final Tile query) {
+        if (query == Tile.EMPTY) {
+            return numTiles() < Hex.COUNT;
+        }
 
-        for (int i = 0; i < hexes.size(); i++) {
-            final Hex hex1 = hexes.get(i);
+        final int ordinal = query.ordinal();
 
-            final Move oneMove = new Move(List.of(hex1));
-            if (validOneMove(oneMove)) {
-                result.add(oneMove);
-            }
+        return tilesLo[ordinal] != 0 || tilesHi[ordinal] != 0;
+    }
 
-            for (int j = i + 1; j < hexes.size(); j++) {
-                final Hex hex2 = hexes.get(j);
+    boolean isPlayable(final int index) {
+        final boolean free = index < 64
+                ? (freeWindows(freeLo) & 1L << index) != 0
+                : (freeWindows(freeHi) & 1L << (index - 64)) != 0;
 
-                final Move twoMove = new Move(List.of(hex1, hex2));
+        return free && !isBlockedMetal(index);
+    }
 
-                if (validTwoMove(twoMove)) {
-                    result.add(twoMove);
-                }
+    private boolean isBlockedMetal(final int index) {
+        final Tile requirement = cells[index].getRequirement();
 
-                for (int k = j + 1; k < hexes.size(); k++) {
-                    final Hex hex3 = hexes.get(k);
+        if (requirement != null) {
+            return has(requirement);
+        }
+
+        return false;
+    }
 
-                    for (int l = k + 1; l < hexes.size(); l++) {
-                        final Hex hex4 = hexes.get(l);
+    /**
+     * Generates moves by grouping the playable hexes by tile and only combining groups that form a legal move, so the
+     * work done is proportional to the number of valid moves rather than the number of playable hex combinations.
+     */
+    public List<Move> validMoves() {
+        final long playableLo = playableLo();
+        final long playableHi = playableHi();
 
-                        //Yikes...
-                        for (int m = l + 1; m < hexes.size(); m++) {
-                            final Hex hex5 = hexes.get(m);
+        final int[][] playable = new int[Tile.values().length][];
 
-                            final Move fiveMove = new Move(List.of(hex1, hex2, hex3, hex4, hex5));
+        for (final Tile tile : Tile.values()) {
+            final int ordinal = tile.ordinal();
+            playable[ordinal] = indices(playableLo & tilesLo[ordinal], playableHi & tilesHi[ordinal]);
+        }
+
+        final List<Move> result = new ArrayList<>();
 
-                            if (validFiveMove(fiveMove)) {
-                                result.add(fiveMove);
-                            }
+        for (final int gold : playable[Tile.GOLD.ordinal()]) {
+            result.add(move(gold));
+        }
+
+        final int[] quicksilver = playable[Tile.QUICKSILVER.ordinal()];
+        for (final Tile metal : METALS) {
+            addPairs(result, quicksilver, playable[metal.ordinal()]);
+        }
+
+        addPairs(result, playable[Tile.VITAE.ordinal()], playable[Tile.MORS.ordinal()]);
+
+        final int[] salt = playable[Tile.SALT.ordinal()];
+        for (final Tile element : ELEMENTS) {
+            addPairs(result, playable[element.ordinal()]);
+        }
+        for (final Tile element : ELEMENTS) {
+            addPairs(result, salt, playable[element.ordinal()]);
+        }
+        addPairs(result, salt);
+
+        for (final int universal : playable[Tile.UNIVERSAL.ordinal()]) {
+            for (final int fire : playable[Tile.FIRE.ordinal()]) {
+                for (final int water : playable[Tile.WATER.ordinal()]) {
+                    for (final int air : playable[Tile.AIR.ordinal()]) {
+                        for (final int earth : playable[Tile.EARTH.ordinal()]) {
+                            result.add(move(universal, fire, water, air, earth));
                         }
                     }
                 }
             }
         }
 
-        return result;
-    }
-
-    private boolean validOneMove(final Move move) {
-        if (move.size() != 1) {
-            return false;
-        }
+        result.sort(Board::compareHexOrder);
 
-        return move.tiles.get(0) == Tile.GOLD;
+        return result;
     }
 
-    private boolean validTwoMove(final Move move) {
-        if (move.size() != 2) {
-            return false;
-        }
+    /**
+     * Orders moves lexicographically by their hex indices, which is the order the search has always explored them in
+     */
+    private static int compareHexOrder(final Move move1, final Move move2) {
+        final List<Hex> hexes1 = move1.hexes;
+        final List<Hex> hexes2 = move2.hexes;
 
-        final List<Tile> tiles = move.tiles;
+        final int size = Math.min(hexes1.size(), hexes2.size());
 
-        if (tiles.contains(Tile.VITAE) && tiles.contains(Tile.MORS)) {
-            return true;
-        }
+        for (int i = 0; i < size; i++) {
+            final int compare = Integer.compare(hexes1.get(i).getIndex(), hexes2.get(i).getIndex());
 
-        if (tiles.get(0) == Tile.SALT && tiles.get(1) == Tile.SALT) {
-            return true;
+            if (compare != 0) {
+                return compare;
+            }
         }
 
-        for (final Tile element : ELEMENTS) {
-            if (tiles.get(0) == element && tiles.get(1) == element) {
-                return true;
-            }
+        return Integer.compare(hexes1.size(), hexes2.size());
+    }
 
-            if (tiles.contains(element) && tiles.contains(Tile.SALT)) {
-                return true;
+    private void addPairs(final List<Move> result, final int[] hexes) {
+        for (int i = 0; i < hexes.length; i++) {
+            for (int j = i + 1; j < hexes.length; j++) {
+                result.add(move(hexes[i], hexes[j]));
             }
         }
+    }
 
-        for (final Tile metal : METALS) {
-            if (tiles.contains(metal) && tiles.contains(Tile.QUICKSILVER)) {
-                return true;
+    private void addPairs(final List<Move> result, final int[] hexes1, final int[] hexes2) {
+        for (final int hex1 : hexes1) {
+            for (final int hex2 : hexes2) {
+                result.add(move(hex1, hex2));
             }
         }
-
-        return false;
     }
 
-    private boolean validFiveMove(final Move move) {
-        if (move.size() != 5) {
-            return false;
-        }
+    private Move move(final int... indices) {
+        Arrays.sort(indices);
 
-        return Stream.concat(Arrays.stream(ELEMENTS), Stream.of(Tile.UNIVERSAL))
-                     .allMatch(move.tiles::contains);
-    }
+        final Hex[] hexes = new Hex[indices.length];
+        final Tile[] tiles = new Tile[indices.length];
 
-    private List<Tile> getTiles(final Move move) {
-        return getTiles(move.hexes);
+        for (int i = 0; i < indices.length; i++) {
+            hexes[i] = Hex.fromIndex(indices[i]);
+            tiles[i] = cells[indices[i]];
+        }
+
+        return new Move(List.of(hexes), List.of(tiles));
     }
 
     private List<Tile> getTiles(final List<Hex> hexes) {
-        return hexes.stream().map(this::get).collect(Collectors.toList());
+        final List<Tile> result = new ArrayList<>(hexes.size());
+
+        for (final Hex hex : hexes) {
+            result.add(get(hex));
+        }
+
+        return result;
     }
 
     public void doMove(final Move move) {
@@ -270,8 +405,12 @@ public class Board {
         private final List<Tile> tiles;
 
         public Move(final List<Hex> hexes) {
+            this(hexes, Board.this.getTiles(hexes));
+        }
+
+        private Move(final List<Hex> hexes, final List<Tile> tiles) {
             this.hexes = hexes;
-            this.tiles = Board.this.getTiles(hexes);
+            this.tiles = tiles;
         }
 
         public List<Hex> getHexes() {
@@ -286,68 +425,18 @@ public class Board {
             return hexes.size();
         }
 
-        @Override
-        public String toString() {
-            return "Move{" +
-                    "hexes=" + hexes +
-                    '}';
-        }
-    }
-
-    public class Hash {
-        private final long l1;
-        private final long l2;
-
-        public Hash() {
-            long l1 = 0;
-            long l2 = 0;
-
-            int index = 0;
-
-            for (final Tile[] tiles : board) {
-                for (final Tile tile : tiles) {
-                    if (tile == Tile.EMPTY) {
-                        if (index < 64) {
-                            l1 |= 1L << index;
-                        } else {
-                            l2 |= 1L << (index - 64);
-                        }
-
-                    }
-
-                    index++;
-                }
-            }
-
-            this.l1 = l1;
-            this.l2 = l2;
-        }
-
-        @Override
-        public boolean equals(final Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-
-            final Hash hash = (Hash) o;
-
-            if (l1 != hash.l1) return false;
-            return l2 == hash.l2;
-        }
-
-        @Override
-        public int hashCode() {
-            int result = (int) (l1 ^ (l1 >>> 32));
-            result = 31 * result + (int) (l2 ^ (l2 >>> 32));
-            return result;
+        /**
+         * @return whether both moves remove the same hexes, in any order
+         */
+        public boolean sameHexes(final Move other) {
+            return hexes.size() == other.hexes.size() && hexes.containsAll(other.hexes);
         }
 
         @Override
         public String toString() {
-            return "Hash{" +
-                    "l1=" + l1 +
-                    ", l2=" + l2 +
+            return "Move{" +
+                    "hexes=" + hexes +
                     '}';
         }
     }
-
 }
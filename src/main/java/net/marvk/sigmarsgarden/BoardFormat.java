@@ -0,0 +1,123 @@
+package net.marvk.sigmarsgarden;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Line based text format for boards and solutions.
+ * <p>
+ * A board is one line of {@value Hex#COUNT} {@link Tile#getSymbol() tile symbols} in row-major hex order. Empty lines
+ * and lines starting with {@code #} are skipped when reading board files. A solution is a space separated list of
+ * moves, each move being the {@code +} separated indices of its hexes. Board files ending in {@value #GZIP_EXTENSION} are
+ * gzip compressed.
+ */
+public final class BoardFormat {
+    private static final String COMMENT = "#";
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private BoardFormat() {
+        throw new AssertionError("No instances of utility class " + BoardFormat.class);
+    }
+
+    public static String comment(final String text) {
+        return COMMENT + " " + text;
+    }
+
+    public static String format(final Board board) {
+        final StringBuilder result = new StringBuilder(Hex.COUNT);
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            result.append(board.get(index).getSymbol());
+        }
+
+        return result.toString();
+    }
+
+    public static Board parse(final String line) {
+        final String trimmed = line.strip();
+
+        if (trimmed.length() != Hex.COUNT) {
+            throw new IllegalArgumentException("Expected %d tiles but got %d in line \"%s\"".formatted(Hex.COUNT, trimmed.length(), line));
+        }
+
+        final Board result = Board.empty();
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            result.set(index, Tile.fromSymbol(trimmed.charAt(index)));
+        }
+
+        return result;
+    }
+
+    /**
+     * Lazily reads the boards of a board file, the stream has to be closed to release the file
+     */
+    public static Stream<Board> lines(final Path path) throws IOException {
+        final BufferedReader reader = newReader(path);
+
+        return reader.lines()
+                     .filter(BoardFormat::isBoardLine)
+                     .map(BoardFormat::parse)
+                     .onClose(() -> {
+                         try {
+                             reader.close();
+                         } catch (final IOException e) {
+                             throw new UncheckedIOException(e);
+                         }
+                     });
+    }
+
+    public static List<Board> read(final Path path) throws IOException {
+        try (final Stream<Board> boards = lines(path)) {
+            return boards.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Opens a board file for reading, files ending in {@value #GZIP_EXTENSION} are decompressed
+     */
+    public static BufferedReader newReader(final Path path) throws IOException {
+        if (isGzip(path)) {
+            return new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8));
+        }
+
+        return Files.newBufferedReader(path);
+    }
+
+    /**
+     * Opens a board file for writing, files ending in {@value #GZIP_EXTENSION} are compressed
+     */
+    public static BufferedWriter newWriter(final Path path) throws IOException {
+        if (isGzip(path)) {
+            return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(path)), StandardCharsets.UTF_8));
+        }
+
+        return Files.newBufferedWriter(path);
+    }
+
+    private static boolean isGzip(final Path path) {
+        return path.getFileName().toString().endsWith(GZIP_EXTENSION);
+    }
+
+    public static String formatSolution(final List<Board.Move> solution) {
+        return solution.stream()
+                       .map(move -> move.getHexes()
+                                        .stream()
+                                        .map(hex -> Integer.toString(hex.getIndex()))
+                                        .collect(Collectors.joining("+")))
+                       .collect(Collectors.joining(" "));
+    }
+
+    private static boolean isBoardLine(final String line) {
+        final String trimmed = line.strip();
+
+        return !trimmed.isEmpty() && !trimmed.startsWith(COMMENT);
+    }
+}
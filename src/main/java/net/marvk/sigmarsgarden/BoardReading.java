@@ -0,0 +1,138 @@
+package net.marvk.sigmarsgarden;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link Classification} of every hex of a capture, indexed like the tiles of a {@link Board}
+ */
+public class BoardReading {
+    private final Classification[] classifications;
+
+    BoardReading(final Classification[] classifications) {
+        this.classifications = classifications;
+    }
+
+    public Classification get(final Hex hex) {
+        return classifications[hex.getIndex()];
+    }
+
+    /**
+     * @return a copy of this reading with the classification of one hex replaced
+     */
+    public BoardReading with(final Hex hex, final Classification classification) {
+        final Classification[] result = classifications.clone();
+        result[hex.getIndex()] = classification;
+        return new BoardReading(result);
+    }
+
+    /**
+     * A reading is valid if every tile occurs exactly {@link Tile#getAmount()} times, which includes the number of empty
+     * hexes and exactly one of each metal. Any board dealt by the game is valid, so an invalid reading contains at least
+     * one misclassified hex.
+     */
+    public boolean isValid() {
+        final int[] counts = counts();
+
+        for (final Tile tile : Tile.values()) {
+            if (counts[tile.ordinal()] != tile.getAmount()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public String describeMismatches() {
+        final int[] counts = counts();
+
+        final List<String> result = new ArrayList<>();
+
+        for (final Tile tile : Tile.values()) {
+            if (counts[tile.ordinal()] != tile.getAmount()) {
+                result.add("%s %d/%d".formatted(tile, counts[tile.ordinal()], tile.getAmount()));
+            }
+        }
+
+        return String.join(", ", result);
+    }
+
+    /**
+     * @return the {@code count} hexes with the smallest margins, least confident first
+     */
+    public List<Hex> leastConfident(final int count) {
+        final List<Hex> hexes = new ArrayList<>(Hex.COUNT);
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            hexes.add(Hex.fromIndex(index));
+        }
+
+        return hexes.stream()
+                    .sorted(Comparator.comparingDouble(hex -> get(hex).getMargin()))
+                    .limit(count)
+                    .collect(Collectors.toList());
+    }
+
+    /**
+     * A tile misread by the cascade can have a large margin, but it is always read as a tile that then occurs too often,
+     * unless that tile was misread as well
+     *
+     * @return the hexes read as a tile that occurs more often than {@link Tile#getAmount()}
+     */
+    public List<Hex> overCounted() {
+        final int[] counts = counts();
+        final List<Hex> result = new ArrayList<>();
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            final Tile tile = classifications[index].getTile();
+
+            if (counts[tile.ordinal()] > tile.getAmount()) {
+                result.add(Hex.fromIndex(index));
+            }
+        }
+
+        return result;
+    }
+
+    public Board getBoard() {
+        final Board result = Board.empty();
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            result.set(index, classifications[index].getTile());
+        }
+
+        return result;
+    }
+
+    public double getMinMargin() {
+        double result = Double.POSITIVE_INFINITY;
+
+        for (final Classification classification : classifications) {
+            result = Math.min(result, classification.getMargin());
+        }
+
+        return result;
+    }
+
+    public int getMatches() {
+        int result = 0;
+
+        for (final Classification classification : classifications) {
+            result += classification.getMatches();
+        }
+
+        return result;
+    }
+
+    private int[] counts() {
+        final int[] result = new int[Tile.values().length];
+
+        for (final Classification classification : classifications) {
+            result[classification.getTile().ordinal()]++;
+        }
+
+        return result;
+    }
+}
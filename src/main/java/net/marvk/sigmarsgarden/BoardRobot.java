@@ -4,71 +4,248 @@ import nu.pattern.OpenCV;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
-import java.awt.event.InputEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.*;
 
 public class BoardRobot {
+    private static final SolverBudget SOLVER_BUDGET = SolverBudget.unlimited().withTime(Duration.ofSeconds(10));
+
+    private static final Point NEW_GAME_BUTTON = new Point(870, 886);
+
+    private static final int POLL_MILLIS = 20;
+
+    /**
+     * Largest {@link FrameSignature#distance(FrameSignature)} between two captures of a screen that did not change
+     */
+    private static final double STILL_DISTANCE = 0.5;
+
+    private static final int SETTLED_POLLS = 5;
+
+    private static final Duration DEAL_START_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration DEAL_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration MOVE_TIMEOUT = Duration.ofMillis(500);
+
+    private static final int BACKGROUND_QUEUE_SIZE = 64;
+
+    private static final int REREAD_ATTEMPTS = 3;
+    private static final int REREAD_TILES = 8;
+
+    private static final Path SOLUTION_CACHE = Paths.get("solutions.cache");
+
     private final boolean saveCaptures;
-    private Robot robot;
+    private final SolutionCache solutionCache;
+    private final BoardVision boardVision = new BoardVision(Runtime.getRuntime().availableProcessors());
+    private final ExecutorService background = newBackgroundExecutor();
+    private final StageTimings totalTimings = new StageTimings();
+    private final Screen screen;
+    private final Input input;
 
     public static void main(final String[] args) throws Exception {
         OpenCV.loadLocally();
         new BoardRobot(false).solveIndefinitely();
     }
 
-    public BoardRobot(final boolean saveCaptures) throws AWTException {
+    public BoardRobot(final Screen screen, final Input input, final SolutionCache solutionCache, final boolean saveCaptures) {
+        this.screen = screen;
+        this.input = input;
+        this.solutionCache = solutionCache;
         this.saveCaptures = saveCaptures;
-        this.robot = new Robot();
     }
 
-    private void solveOnce() throws IOException {
-        System.out.println("NEW GAME");
-        robot.mouseMove(870, 886);
-        click();
-        robot.delay(4750);
-        System.out.println("CAPTURING BOARD...");
+    private BoardRobot(final Robot robot, final boolean saveCaptures) throws IOException {
+        this(new RobotScreen(robot), new RobotInput(robot), SolutionCache.open(SOLUTION_CACHE), saveCaptures);
+    }
+
+    /**
+     * Plays the game on this machine's screen with a {@link Robot}, caching solutions in {@code solutions.cache}
+     */
+    public BoardRobot(final boolean saveCaptures) throws AWTException, IOException {
+        this(new Robot(), saveCaptures);
+    }
+
+    private void solveOnce() throws IOException, InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        final StageTimings timings = new StageTimings();
+
+        // Preparing the solver allocates its transposition table while the deal animation plays
+        final Future<BoardSolver> solver = background.submit(this::newSolver);
+
+        log("NEW GAME");
+        startNewGame();
+        timings.lap(StageTimings.Stage.NEW_GAME);
+
         final BufferedImage capture = screenCapture();
         if (saveCaptures) {
-            saveToSolvedBoards(screenCapture());
+            archive(capture);
         }
-        System.out.println("CAPTURED BOARD");
+        timings.lap(StageTimings.Stage.CAPTURE);
 
-        System.out.println("READING BOARD...");
-        final Board board = new BoardVision().readBoard(ImageUtil.monochrome(capture));
-        System.out.println("READ BOARD");
+        final BoardReading reading = read(capture);
+        log("READ BOARD " + boardVision.getLastTimings());
+        timings.lap(StageTimings.Stage.READ);
 
-        final ExecutorService executor = Executors.newSingleThreadExecutor();
-        final BoardSolver boardSolver = new BoardSolver();
-        final Future<List<Board.Move>> solutionFuture = executor.submit(() -> getSolution(board, boardSolver));
+        if (!reading.isValid()) {
+            log("INVALID BOARD READ: " + reading.describeMismatches());
+            finishGame(timings);
+            return;
+        }
+
+        final Board board = reading.getBoard();
 
         try {
-            System.out.println("SOLVING...");
-            final LocalDateTime start = LocalDateTime.now();
-            final List<Board.Move> solution = solutionFuture.get(10, TimeUnit.SECONDS);
-            System.out.println("SOLVED IN %s WITH %d ITERATIONS".formatted(Duration.between(start, LocalDateTime.now()), boardSolver.getIterations()));
-            System.out.println("EXECUTING...");
-            executeSolution(solution);
-            System.out.println("WE HOPEFULLY DID IT");
-            robot.delay(100);
-        } catch (InterruptedException | TimeoutException | ExecutionException ignored) {
-            System.out.println("FAILED TO SOLVE IN DUE TIME");
-            solutionFuture.cancel(true);
+            final SolverResult result = solve(board, solver);
+            timings.lap(StageTimings.Stage.SOLVE);
+
+            if (!result.isSolved()) {
+                log("FAILED TO SOLVE: %s AFTER %s WITH %d ITERATIONS".formatted(result.getStatus(), result.getDuration(), result.getIterations()));
+                return;
+            }
+
+            log("SOLVED IN %s WITH %d ITERATIONS".formatted(result.getDuration(), result.getIterations()));
+            executeSolution(board, result.getSolution());
+            input.delay(100);
+            timings.lap(StageTimings.Stage.EXECUTE);
         } finally {
             if (saveCaptures) {
-                saveToSolvedBoards(screenCapture());
+                archive(screenCapture());
+            }
+
+            finishGame(timings);
+        }
+    }
+
+    private void finishGame(final StageTimings timings) {
+        totalTimings.add(timings);
+        log("GAME " + timings);
+        log("TOTAL " + totalTimings);
+    }
+
+    private BoardReading read(final BufferedImage capture) {
+        return repair(boardVision.read(ImageUtil.monochrome(capture)));
+    }
+
+    /**
+     * Re-classifies a reading that does not contain the expected tiles. The hexes read as a tile that occurs too often
+     * and the least confident hexes are captured again and matched against every template, which also catches tiles
+     * the cascade misread with a large margin. If the reading is still invalid after {@value #REREAD_ATTEMPTS}
+     * attempts, the whole board is captured again and every hex is matched against every template.
+     */
+    BoardReading repair(final BoardReading reading) {
+        BoardReading result = reading;
+
+        for (int attempt = 0; attempt < REREAD_ATTEMPTS && !result.isValid(); attempt++) {
+            final Set<Hex> hexes = new LinkedHashSet<>(result.overCounted());
+            hexes.addAll(result.leastConfident(REREAD_TILES));
+
+            log("INVALID BOARD READ: %s, RE-READING %d TILES".formatted(result.describeMismatches(), hexes.size()));
+
+            for (final Hex hex : hexes) {
+                result = result.with(hex, readTile(hex));
             }
         }
+
+        if (!result.isValid()) {
+            log("INVALID BOARD READ: %s, RE-READING BOARD".formatted(result.describeMismatches()));
+
+            result = boardVision.read(ImageUtil.monochrome(screenCapture()), false);
+        }
+
+        return result;
     }
 
-    public void solveIndefinitely() throws IOException {
+    private SolverResult solve(final Board board, final Future<BoardSolver> solver) throws IOException, InterruptedException {
+        final Optional<SolverResult> cached = solutionCache.get(board);
+
+        if (cached.isPresent()) {
+            log("FOUND %s DEAL IN SOLUTION CACHE".formatted(cached.get().getStatus()));
+            return cached.get();
+        }
+
+        final SolverResult result;
+
+        try {
+            result = solver.get().solve(board.copy(), SOLVER_BUDGET);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Failed to prepare solver", e.getCause());
+        }
+
+        solutionCache.put(board, result);
+
+        return result;
+    }
+
+    private BoardSolver newSolver() {
+        final BoardSolver result = new BoardSolver(new TranspositionTable(), Runtime.getRuntime().availableProcessors(), MoveOrdering.heuristic());
+        result.setListener(metrics -> log("SOLVER METRICS " + metrics));
+        return result;
+    }
+
+    private void log(final String line) {
+        background.execute(() -> System.out.println(line));
+    }
+
+    private void archive(final BufferedImage capture) {
+        background.execute(() -> {
+            try {
+                saveToSolvedBoards(capture);
+            } catch (final IOException e) {
+                System.out.println("FAILED TO SAVE CAPTURE: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Runs logging, archiving and warm-up tasks in submission order on one daemon thread. When the queue is full, the
+     * submitting thread waits for space instead of dropping the task
+     */
+    private static ExecutorService newBackgroundExecutor() {
+        return new ThreadPoolExecutor(
+                1,
+                1,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(BACKGROUND_QUEUE_SIZE),
+                runnable -> {
+                    final Thread result = new Thread(runnable, "board-robot-background");
+                    result.setDaemon(true);
+                    return result;
+                },
+                (runnable, executor) -> {
+                    try {
+                        executor.getQueue().put(runnable);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for the background queue", e);
+                    }
+                }
+        );
+    }
+
+    public void solve(final int games) throws IOException, InterruptedException {
+        for (int i = 0; i < games; i++) {
+            solveOnce();
+        }
+    }
+
+    public StageTimings getTotalTimings() {
+        return totalTimings;
+    }
+
+    public void solveIndefinitely() throws IOException, InterruptedException {
         while (true) {
             solveOnce();
         }
@@ -85,49 +262,143 @@ public class BoardRobot {
     }
 
     private BufferedImage screenCapture() {
-        return robot.createScreenCapture(new Rectangle(Toolkit.getDefaultToolkit()
-                                                              .getScreenSize()));
+        return screen.capture(ImageUtil.BOARD_BOUNDS);
     }
 
-    private List<Board.Move> getSolution(final Board board, final BoardSolver boardSolver) throws InterruptedException {
-        return boardSolver.solve(board);
-    }
+    /**
+     * Plays the solution in the order given by {@link SolutionScheduler}. A move is clicked without waiting for the
+     * previous moves to disappear if it was already valid before them, otherwise the robot first confirms that the
+     * tiles of all moves clicked since the last confirmation are gone.
+     */
+    public void executeSolution(final Board board, final List<Board.Move> solution) {
+        final List<Board.Move> schedule = SolutionScheduler.schedule(board, solution, NEW_GAME_BUTTON);
 
-    public void executeSolution(final List<Board.Move> solution) {
-        for (final Board.Move move : solution) {
-            final List<Hex> hexes = getHexes(move);
+        log("EXECUTING, MOUSE TRAVEL %.0f PX, %.0f PX IN SOLUTION ORDER".formatted(
+                SolutionScheduler.travel(schedule, NEW_GAME_BUTTON),
+                SolutionScheduler.travel(solution, NEW_GAME_BUTTON)
+        ));
 
-            for (final Hex hex : hexes) {
-                robot.mouseMove(screenX(hex), screenY(hex));
-                click();
-                robot.delay(10);
+        final Board confirmed = board.copy();
+        final List<Board.Move> pending = new ArrayList<>();
+
+        for (final Board.Move move : schedule) {
+            if (!SolutionScheduler.isValid(confirmed, move)) {
+                confirmRemoved(confirmed, pending);
             }
+
+            for (final Hex hex : move.getHexes()) {
+                input.moveMouse(screenX(hex), screenY(hex));
+                input.click();
+            }
+
+            pending.add(move);
         }
+
+        confirmRemoved(confirmed, pending);
     }
 
-    private void click() {
-        robot.mousePress(InputEvent.BUTTON1_DOWN_MASK);
-        robot.delay(10);
-        robot.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
+    /**
+     * Waits until the tiles of the pending moves disappeared and plays them on the confirmed board
+     */
+    private void confirmRemoved(final Board confirmed, final List<Board.Move> pending) {
+        final List<Hex> hexes = new ArrayList<>();
+
+        for (final Board.Move move : pending) {
+            hexes.addAll(move.getHexes());
+            confirmed.doMove(move);
+        }
+
+        if (!awaitRemoved(hexes)) {
+            log("TILES %s DID NOT DISAPPEAR IN %s".formatted(hexes, MOVE_TIMEOUT));
+        }
+
+        pending.clear();
     }
 
-    private List<Hex> getHexes(final Board.Move move) {
-        final List<Hex> hexes = move.getHexes();
+    private void startNewGame() {
+        final FrameSignature before = FrameSignature.of(screenCapture());
+
+        input.moveMouse(NEW_GAME_BUTTON.x, NEW_GAME_BUTTON.y);
+        input.click();
 
-        if (move.size() != 5) {
-            return hexes;
+        final long start = System.nanoTime();
+
+        if (!awaitChange(before, DEAL_START_TIMEOUT)) {
+            log("NO DEAL ANIMATION DETECTED IN " + DEAL_START_TIMEOUT);
         }
 
-        final int universalIndex = move.getTiles().indexOf(Tile.UNIVERSAL);
+        if (!awaitSettled(DEAL_TIMEOUT)) {
+            log("BOARD DID NOT SETTLE IN " + DEAL_TIMEOUT);
+        }
+
+        log("BOARD SETTLED AFTER " + Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private boolean awaitChange(final FrameSignature before, final Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
 
-        if (universalIndex == 0) {
-            return hexes;
+        while (System.nanoTime() - deadline < 0) {
+            if (FrameSignature.of(screenCapture()).distance(before) > STILL_DISTANCE) {
+                return true;
+            }
+
+            input.delay(POLL_MILLIS);
         }
 
-        final List<Hex> result = new ArrayList<>(hexes);
-        final Hex universalHex = result.remove(universalIndex);
-        result.add(0, universalHex);
-        return result;
+        return false;
+    }
+
+    private boolean awaitSettled(final Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+
+        FrameSignature previous = FrameSignature.of(screenCapture());
+        int stillPolls = 0;
+
+        while (System.nanoTime() - deadline < 0) {
+            input.delay(POLL_MILLIS);
+
+            final FrameSignature current = FrameSignature.of(screenCapture());
+            stillPolls = current.distance(previous) <= STILL_DISTANCE ? stillPolls + 1 : 0;
+            previous = current;
+
+            if (stillPolls >= SETTLED_POLLS) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean awaitRemoved(final List<Hex> hexes) {
+        final long deadline = System.nanoTime() + MOVE_TIMEOUT.toNanos();
+
+        int removed = 0;
+
+        while (System.nanoTime() - deadline < 0) {
+            while (removed < hexes.size() && isEmpty(hexes.get(removed))) {
+                removed++;
+            }
+
+            if (removed == hexes.size()) {
+                return true;
+            }
+
+            input.delay(POLL_MILLIS);
+        }
+
+        return false;
+    }
+
+    private boolean isEmpty(final Hex hex) {
+        return boardVision.isEmptyTile(captureTile(hex));
+    }
+
+    private Classification readTile(final Hex hex) {
+        return boardVision.classifyTile(captureTile(hex));
+    }
+
+    private BufferedImage captureTile(final Hex hex) {
+        return ImageUtil.monochrome(screen.capture(ImageUtil.bounds(hex)));
     }
 
     public static int screenX(final Hex hex) {
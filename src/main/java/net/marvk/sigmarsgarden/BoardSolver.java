@@ -1,74 +1,416 @@
 package net.marvk.sigmarsgarden;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
 public class BoardSolver {
-    private final Set<Board.Hash> transpositions = new HashSet<>();
-    private final boolean enableTranspositionTable;
+    /**
+     * Depth up to which the parallel search forks a task per move, below it every task searches sequentially
+     */
+    private static final int SPLIT_DEPTH = 3;
 
-    private int iterations = 0;
+    /**
+     * Number of nodes between two checks of the budget, cancellation and interruption
+     */
+    static final int CHECK_INTERVAL = 1 << 10;
 
+    /**
+     * Parallel searches share one pool per parallelism instead of starting new threads for every solve
+     */
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private final TranspositionTable transpositions;
+    private final int parallelism;
+    private final MoveOrdering moveOrdering;
+
+    private final LongAdder iterations = new LongAdder();
+
+    private SolverListener listener;
+    private SolverMetrics metrics;
+
+    private SolverBudget budget = SolverBudget.unlimited();
+    private long start;
+
+    private volatile boolean cancelled = false;
+    private volatile boolean exhausted = false;
+    private volatile boolean interrupted = false;
     private boolean spent = false;
 
+    /**
+     * @param transpositions the table to record explored boards in, or {@code null} to disable transpositions. Shared
+     *                       by all workers of a parallel search
+     * @param parallelism    the number of threads to search with, {@code 1} searches on the calling thread
+     * @param moveOrdering   the order to try the valid moves of each board in
+     */
+    public BoardSolver(final TranspositionTable transpositions, final int parallelism, final MoveOrdering moveOrdering) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, was " + parallelism);
+        }
+
+        this.transpositions = transpositions;
+        this.parallelism = parallelism;
+        this.moveOrdering = moveOrdering;
+    }
+
+    public BoardSolver(final TranspositionTable transpositions, final int parallelism) {
+        this(transpositions, parallelism, MoveOrdering.natural());
+    }
+
+    /**
+     * @param transpositions the table to record explored boards in, or {@code null} to disable transpositions
+     */
+    public BoardSolver(final TranspositionTable transpositions) {
+        this(transpositions, 1);
+    }
+
     public BoardSolver(final boolean enableTranspositionTable) {
-        this.enableTranspositionTable = enableTranspositionTable;
+        this(enableTranspositionTable ? new TranspositionTable() : null);
     }
 
     public BoardSolver() {
         this(true);
     }
 
+    /**
+     * Solves the board without a budget
+     *
+     * @throws IllegalStateException if the board can not be solved
+     * @throws InterruptedException  if the calling thread was interrupted while solving
+     */
     public List<Board.Move> solve(final Board board) throws InterruptedException {
+        final SolverResult result = solve(board, SolverBudget.unlimited());
+
+        if (!result.isSolved()) {
+            throw new IllegalStateException("Failed to solve board");
+        }
+
+        return result.getSolution();
+    }
+
+    /**
+     * Solves the board until a solution is found, the board is proven unsolvable or the budget is exhausted. The budget
+     * is checked every {@value #CHECK_INTERVAL} nodes, so it may be overrun by that many nodes per thread.
+     *
+     * @throws InterruptedException if the calling thread was interrupted while solving
+     */
+    public SolverResult solve(final Board board, final SolverBudget budget) throws InterruptedException {
         if (spent) {
             throw new IllegalArgumentException();
         }
         spent = true;
 
-        return backtrack(board).orElseThrow(() -> new IllegalStateException("Failed to solve board"));
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        if (transpositions != null) {
+            transpositions.nextGeneration();
+        }
+
+        if (listener != null) {
+            metrics = new SolverMetrics();
+        }
+
+        this.budget = budget;
+        this.start = System.nanoTime();
+
+        try {
+            final Optional<List<Board.Move>> solution = parallelism == 1 ? solveSequential(board) : solveParallel(board);
+
+            if (interrupted) {
+                throw new InterruptedException();
+            }
+
+            final SolverResult.Status status;
+
+            if (solution.isPresent()) {
+                status = SolverResult.Status.SOLVED;
+            } else if (exhausted) {
+                status = SolverResult.Status.BUDGET_EXHAUSTED;
+            } else {
+                status = SolverResult.Status.UNSOLVABLE;
+            }
+
+            final Duration duration = Duration.ofNanos(System.nanoTime() - start);
+
+            return new SolverResult(status, solution.orElse(List.of()), getIterations(), duration, metrics);
+        } finally {
+            if (metrics != null) {
+                metrics.elapsed(System.nanoTime() - start);
+                listener.solveFinished(metrics);
+            }
+        }
     }
 
-    private Optional<List<Board.Move>> backtrack(final Board board) throws InterruptedException {
-        return backtrack(new ArrayList<>(), board);
+    private Optional<List<Board.Move>> solveSequential(final Board board) throws InterruptedException {
+        try {
+            return new Search(board, new ArrayList<>()).run();
+        } catch (final InterruptedException e) {
+            if (exhausted) {
+                return Optional.empty();
+            }
+
+            throw e;
+        }
     }
 
-    private Optional<List<Board.Move>> backtrack(final List<Board.Move> solution, final Board board) throws InterruptedException {
-        if (Thread.interrupted()) {
+    private Optional<List<Board.Move>> solveParallel(final Board board) throws InterruptedException {
+        final ForkJoinPool pool = POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+
+        try {
+            final ForkJoinTask<List<Board.Move>> task = pool.submit(new SplitTask(board.copy(), new ArrayList<>(), 0));
+
+            return Optional.ofNullable(task.get());
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Parallel search failed", e.getCause());
+        } finally {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Stops the search once it was cancelled, the thread was interrupted or the budget is exhausted
+     */
+    private void checkBudget() throws InterruptedException {
+        if (cancelled) {
             throw new InterruptedException();
         }
 
-        if (board.isSolved()) {
-            return Optional.of(solution);
+        if (Thread.interrupted()) {
+            interrupted = true;
+        } else if (budget.exceedsTime(System.nanoTime() - start) || iterations.sum() >= budget.getNodes() || budget.exceedsMemory()) {
+            exhausted = true;
+        } else {
+            return;
+        }
+
+        cancelled = true;
+        throw new InterruptedException();
+    }
+
+    public int getIterations() {
+        return iterations.intValue();
+    }
+
+    /**
+     * Enables metric collection for the next solve and reports the metrics to the listener once it finished
+     *
+     * @param listener the listener, or {@code null} to disable metric collection
+     */
+    public void setListener(final SolverListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the metrics of the last solve, or {@code null} if no listener was set
+     */
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
+
+    private boolean isTransposition(final Board board, final SolverMetrics metrics) {
+        if (transpositions == null) {
+            return false;
+        }
+
+        if (metrics == null) {
+            return transpositions.contains(board.hash());
         }
 
-        iterations++;
+        final long start = System.nanoTime();
+        final boolean result = transpositions.contains(board.hash());
+        metrics.hashing(System.nanoTime() - start);
+        metrics.transposition(result);
+
+        return result;
+    }
+
+    private SolverMetrics newLocalMetrics() {
+        return metrics == null ? null : new SolverMetrics();
+    }
 
-        if (enableTranspositionTable) {
-            transpositions.add(board.hash());
+    private void mergeLocalMetrics(final SolverMetrics local) {
+        if (local != null) {
+            metrics.merge(local);
         }
+    }
 
-        final List<Board.Move> moves = board.validMoves();
+    private class Search {
+        private final Board board;
+        private final List<Board.Move> solution;
 
-        for (final Board.Move move : moves) {
-            board.doMove(move);
+        private final SolverMetrics metrics = newLocalMetrics();
 
-            if (!(enableTranspositionTable && transpositions.contains(board.hash()))) {
-                solution.add(move);
+        private int iterations = 0;
 
-                final Optional<List<Board.Move>> result = backtrack(solution, board);
-                if (result.isPresent()) {
-                    return result;
+        private Search(final Board board, final List<Board.Move> solution) {
+            this.board = board;
+            this.solution = solution;
+        }
+
+        private Optional<List<Board.Move>> run() throws InterruptedException {
+            try {
+                return backtrack();
+            } finally {
+                BoardSolver.this.iterations.add(iterations % CHECK_INTERVAL);
+                mergeLocalMetrics(metrics);
+            }
+        }
+
+        private Optional<List<Board.Move>> backtrack() throws InterruptedException {
+            if (board.isSolved()) {
+                return Optional.of(solution);
+            }
+
+            if (!FeasibilityChecker.isFeasible(board)) {
+                if (metrics != null) {
+                    metrics.infeasible();
                 }
 
-                solution.remove(move);
+                return Optional.empty();
             }
 
-            board.undoMove(move);
-        }
+            if (++iterations % CHECK_INTERVAL == 0) {
+                BoardSolver.this.iterations.add(CHECK_INTERVAL);
+                checkBudget();
+            }
+
+            final long hashingStart = metrics != null ? System.nanoTime() : 0L;
+
+            if (transpositions != null) {
+                transpositions.put(board.hash(), board.numTiles());
+            }
+
+            final long moveGenerationStart = metrics != null ? System.nanoTime() : 0L;
+
+            final List<Board.Move> moves = moveOrdering.order(board, board.validMoves());
+
+            if (metrics != null) {
+                final long moveGenerationEnd = System.nanoTime();
+                metrics.hashing(moveGenerationStart - hashingStart);
+                metrics.moveGeneration(moveGenerationEnd - moveGenerationStart);
+                metrics.node(solution.size(), moves.size());
+            }
+
+            for (final Board.Move move : moves) {
+                board.doMove(move);
 
-        return Optional.empty();
+                if (!isTransposition(board, metrics)) {
+                    solution.add(move);
+
+                    final Optional<List<Board.Move>> result = backtrack();
+                    if (result.isPresent()) {
+                        return result;
+                    }
+
+                    solution.remove(solution.size() - 1);
+                }
+
+                board.undoMove(move);
+            }
+
+            return Optional.empty();
+        }
     }
 
-    public int getIterations() {
-        return iterations;
+    /**
+     * Forks one task per move on its own copy of the board until {@link #SPLIT_DEPTH}, then searches sequentially.
+     * Idle workers steal the pending subtrees and the first task to find a solution cancels all others.
+     */
+    private class SplitTask extends RecursiveTask<List<Board.Move>> {
+        private final Board board;
+        private final List<Board.Move> solution;
+        private final int depth;
+
+        private SplitTask(final Board board, final List<Board.Move> solution, final int depth) {
+            this.board = board;
+            this.solution = solution;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<Board.Move> compute() {
+            if (cancelled) {
+                return null;
+            }
+
+            if (depth >= SPLIT_DEPTH) {
+                try {
+                    return found(new Search(board, solution).run().orElse(null));
+                } catch (final InterruptedException e) {
+                    return null;
+                }
+            }
+
+            if (board.isSolved()) {
+                return found(solution);
+            }
+
+            final SolverMetrics metrics = newLocalMetrics();
+
+            if (!FeasibilityChecker.isFeasible(board)) {
+                if (metrics != null) {
+                    metrics.infeasible();
+                    mergeLocalMetrics(metrics);
+                }
+
+                return null;
+            }
+
+            iterations.increment();
+
+            if (transpositions != null) {
+                transpositions.put(board.hash(), board.numTiles());
+            }
+
+            final List<Board.Move> moves = moveOrdering.order(board, board.validMoves());
+
+            if (metrics != null) {
+                metrics.node(depth, moves.size());
+            }
+
+            final List<SplitTask> tasks = new ArrayList<>();
+
+            for (final Board.Move move : moves) {
+                final Board child = board.copy();
+                child.doMove(move);
+
+                if (!isTransposition(child, metrics)) {
+                    final List<Board.Move> childSolution = new ArrayList<>(solution);
+                    childSolution.add(move);
+
+                    tasks.add(new SplitTask(child, childSolution, depth + 1));
+                }
+            }
+
+            mergeLocalMetrics(metrics);
+
+            for (int i = tasks.size() - 1; i > 0; i--) {
+                tasks.get(i).fork();
+            }
+
+            List<Board.Move> result = null;
+
+            for (int i = 0; i < tasks.size(); i++) {
+                final SplitTask task = tasks.get(i);
+                final List<Board.Move> taskResult = i == 0 ? task.compute() : task.join();
+
+                if (result == null) {
+                    result = taskResult;
+                }
+            }
+
+            return result;
+        }
+
+        private List<Board.Move> found(final List<Board.Move> result) {
+            if (result != null) {
+                cancelled = true;
+            }
+
+            return result;
+        }
     }
 }
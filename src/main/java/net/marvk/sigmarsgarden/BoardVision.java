@@ -1,80 +1,284 @@
 package net.marvk.sigmarsgarden;
 
 import org.opencv.core.Core;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.Rect;
 import org.opencv.imgproc.Imgproc;
 
+import java.awt.Point;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
 
 public class BoardVision {
+    /**
+     * Calibrated on rendered deals with active and inactive tiles, up to 3 pixels of offset and Gaussian noise of up to
+     * 8 gray levels, where these thresholds misread no tile that matching every template reads correctly
+     */
+    private static final double ACCEPT_SCORE = 0.8;
+    private static final int SHORTLIST_SIZE = 8;
+    private static final double SHORTLIST_SCORE = 0.6;
+
+    /**
+     * Part of a captured tile that is covered by the templates, the signature of a tile is computed over it
+     */
+    private static final Rect SIGNATURE_REGION = new Rect(ImageUtil.PADDING, ImageUtil.PADDING, ImageUtil.SIZE - 2 * ImageUtil.PADDING, ImageUtil.SIZE - 2 * ImageUtil.PADDING);
+
+    private static final Mat CONTRAST = contrastTable();
+
+    private static final TemplateBank TEMPLATES = new TemplateBank(BoardVision::adjust);
+
+    /**
+     * Scratch matrices of the tile currently classified on each thread, reused to avoid native allocations per tile
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    private VisionTimings lastTimings;
+
+    /**
+     * @param parallelism the number of threads to classify tiles on, {@code 1} classifies on the calling thread
+     */
+    public BoardVision(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, was " + parallelism);
+        }
+
+        this.parallelism = parallelism;
+        this.executor = parallelism == 1 ? null : Executors.newFixedThreadPool(parallelism, BoardVision::newThread);
+    }
+
+    public BoardVision() {
+        this(1);
+    }
+
     public Board readBoard(final BufferedImage image) {
-        final BufferedImage[][] board = ImageUtil.split(image);
+        return read(image).getBoard();
+    }
+
+    /**
+     * Classifies every hex of a capture, keeping the confidence of each classification
+     *
+     * @param image a full screen capture or a capture of {@link ImageUtil#BOARD_BOUNDS}
+     */
+    public BoardReading read(final BufferedImage image) {
+        return read(image, true);
+    }
+
+    /**
+     * @param cascade whether to stop matching each tile early, otherwise every tile is matched against every template
+     * @see #read(BufferedImage)
+     */
+    public BoardReading read(final BufferedImage image, final boolean cascade) {
+        final long convertStart = System.nanoTime();
+        final Mat capture = ImageUtil.bufferedImageToMat(image);
+
+        final long splitStart = System.nanoTime();
+        final Mat[] tiles = split(capture, ImageUtil.origin(image));
+
+        final long matchStart = System.nanoTime();
+        final Classification[] result = parallelism == 1 ? classify(tiles, cascade) : classifyParallel(tiles, cascade);
+
+        final long end = System.nanoTime();
+        lastTimings = new VisionTimings(splitStart - convertStart, matchStart - splitStart, end - matchStart);
+
+        return new BoardReading(result);
+    }
+
+    public VisionTimings getLastTimings() {
+        return lastTimings;
+    }
+
+    private static Mat[] split(final Mat capture, final Point origin) {
+        final Mat[][] board = ImageUtil.split(capture, origin);
+        final Mat[] result = new Mat[Hex.COUNT];
+
+        for (int y = 0; y < board.length; y++) {
+            for (int x = 0; x < board[y].length; x++) {
+                result[Hex.fromArrayCoords(x, y).getIndex()] = board[y][x];
+            }
+        }
+
+        return result;
+    }
 
-        final Tile[][] result = new Tile[board.length][];
+    private static Classification[] classify(final Mat[] tiles, final boolean cascade) {
+        final Classification[] result = new Classification[tiles.length];
 
-        for (int i = 0; i < board.length; i++) {
-            final BufferedImage[] tiles = board[i];
-            result[i] = new Tile[tiles.length];
-            for (int j = 0; j < tiles.length; j++) {
-                final BufferedImage tile = tiles[j];
-                result[i][j] = bestFit(tile);
+        for (int i = 0; i < tiles.length; i++) {
+            result[i] = bestFit(tiles[i], cascade);
+        }
+
+        return result;
+    }
+
+    /**
+     * Classifies every tile as its own task, each result is written to the position of its tile so the board does not
+     * depend on the order the tasks finish in
+     */
+    private Classification[] classifyParallel(final Mat[] tiles, final boolean cascade) {
+        final Classification[] result = new Classification[tiles.length];
+        final List<Callable<Void>> tasks = new ArrayList<>(tiles.length);
+
+        for (int i = 0; i < tiles.length; i++) {
+            final int index = i;
+
+            tasks.add(() -> {
+                result[index] = bestFit(tiles[index], cascade);
+                return null;
+            });
+        }
+
+        try {
+            for (final Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
             }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading board", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Failed to read board", e.getCause());
         }
 
-        return new Board(result);
+        return result;
     }
 
-    private static Tile bestFit(final BufferedImage bufferedImage) {
-        final Mat base = ImageUtil.bufferedImageToMat(bufferedImage);
+    /**
+     * Classifies a single captured tile of {@value ImageUtil#SIZE} by {@value ImageUtil#SIZE} pixels, matching it against
+     * every template instead of stopping early. Meant for re-reading tiles whose first read was not confident.
+     */
+    public Classification classifyTile(final BufferedImage image) {
+        return bestFit(ImageUtil.bufferedImageToMat(image), false);
+    }
+
+    /**
+     * Tells whether a single captured tile shows an empty hex by matching it against every template, like {@link
+     * #classifyTile(BufferedImage)}. Neither a signature nor a match against the {@link Tile#EMPTY} templates alone is
+     * enough, the inactive templates of some tiles are barely darker than an empty hex.
+     */
+    public boolean isEmptyTile(final BufferedImage image) {
+        return classifyTile(image).getTile() == Tile.EMPTY;
+    }
+
+    private static Thread newThread(final Runnable runnable) {
+        final Thread result = new Thread(runnable, "board-vision");
+        result.setDaemon(true);
+        return result;
+    }
+
+    /**
+     * Classifies a tile in two stages. First, the templates are ranked by the distance of their signature to the
+     * signature of the tile, see {@link TemplateBank#rank(double, double)}. Then, templates are matched in that order
+     * until one scores at least {@link #ACCEPT_SCORE} while a template of another tile was matched as well, or until
+     * the {@link #SHORTLIST_SIZE} most likely templates are matched. Only if none of those scores at least {@link
+     * #SHORTLIST_SCORE}, the remaining templates are matched too.
+     *
+     * @param cascade whether to stop matching early, otherwise every template is matched
+     */
+    private static Classification bestFit(final Mat base, final boolean cascade) {
+        final Scratch scratch = SCRATCH.get();
+        final Mat adjusted = adjust(base, scratch.adjusted);
+
+        signature(base, scratch);
+        final int[] ranking = TEMPLATES.rank(scratch.mean.toArray()[0], scratch.deviation.toArray()[0]);
 
         double bestScore = Double.NEGATIVE_INFINITY;
         Tile bestTile = null;
+        double runnerUpScore = Double.NEGATIVE_INFINITY;
 
-        for (final Tile tile : Tile.values()) {
-            final Mat[] mats = {tile.getInactiveMat(), tile.getActiveMat()};
+        int matches = 0;
 
-            for (int i = 0; i < 2; i++) {
-                final double score = compare(base, mats[i]);
+        for (final int template : ranking) {
+            if (cascade && matches >= SHORTLIST_SIZE && bestScore >= SHORTLIST_SCORE) {
+                break;
+            }
+
+            final double score = compare(adjusted, TEMPLATES.getTemplate(template), scratch.result);
+            final Tile tile = TEMPLATES.getTile(template);
+            matches++;
 
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestTile = tile;
+            if (score > bestScore) {
+                if (tile != bestTile) {
+                    runnerUpScore = bestScore;
                 }
+
+                bestScore = score;
+                bestTile = tile;
+            } else if (tile != bestTile && score > runnerUpScore) {
+                runnerUpScore = score;
+            }
+
+            if (cascade && bestScore >= ACCEPT_SCORE && runnerUpScore > Double.NEGATIVE_INFINITY) {
+                break;
             }
         }
 
-        return bestTile;
+        return new Classification(bestTile, bestScore, bestScore - runnerUpScore, matches);
     }
 
-    private static double compare(final Mat mat1, final Mat mat2) {
-        final Mat score = new Mat();
+    /**
+     * Computes the signature of a captured tile into the scratch mean and deviation. Like the template signatures, it is
+     * taken from the unprocessed pixels of the region the templates were cut from, since histogram equalization leaves
+     * every tile with about the same mean and deviation.
+     */
+    private static void signature(final Mat base, final Scratch scratch) {
+        Core.meanStdDev(base.submat(SIGNATURE_REGION), scratch.mean, scratch.deviation);
+    }
 
-        Imgproc.matchTemplate(adjust(mat1), adjust(mat2), score, Imgproc.TM_CCOEFF_NORMED);
+    private static double compare(final Mat mat1, final Mat mat2, final Mat result) {
+        Imgproc.matchTemplate(mat1, mat2, result, Imgproc.TM_CCOEFF_NORMED);
 
-        return Core.minMaxLoc(score).maxVal;
+        return Core.minMaxLoc(result).maxVal;
     }
 
-    private static Mat adjust(final Mat input) {
-        final Mat equalized = new Mat(input.rows(), input.cols(), input.type());
+    static Mat adjust(final Mat input) {
+        return adjust(input, new Mat(input.rows(), input.cols(), input.type()));
+    }
 
-        Imgproc.equalizeHist(input, equalized);
+    private static Mat adjust(final Mat input, final Mat result) {
+        Imgproc.equalizeHist(input, result);
+        Core.LUT(result, CONTRAST, result);
 
-        for (int j = 0; j < equalized.rows(); j++) {
-            for (int i = 0; i < equalized.cols(); i++) {
-                final double[] pixel = equalized.get(j, i);
+        return result;
+    }
 
-                pixel[0] = clamp(0, 255, 255 - Math.pow((Math.max(230 - pixel[0], 0)), 1.1));
-                pixel[0] = clamp(0, 255, 255 - Math.pow((Math.max(255 - pixel[0], 0)), 1.1));
-                pixel[0] = clamp(0, 255, 255 - Math.pow((Math.max(255 - pixel[0], 0)), 1.1));
+    /**
+     * Builds the lookup table of the contrast transform by applying it to every possible value, so the table produces
+     * exactly what applying the transform per pixel would
+     */
+    private static Mat contrastTable() {
+        final Mat result = new Mat(1, 256, CvType.CV_8UC1);
 
-                equalized.put(j, i, pixel);
-            }
+        for (int i = 0; i < 256; i++) {
+            result.put(0, i, i);
         }
 
-        return equalized;
+        for (int i = 0; i < result.cols(); i++) {
+            final double[] pixel = result.get(0, i);
+
+            pixel[0] = clamp(0, 255, 255 - Math.pow((Math.max(230 - pixel[0], 0)), 1.1));
+            pixel[0] = clamp(0, 255, 255 - Math.pow((Math.max(255 - pixel[0], 0)), 1.1));
+            pixel[0] = clamp(0, 255, 255 - Math.pow((Math.max(255 - pixel[0], 0)), 1.1));
+
+            result.put(0, i, pixel);
+        }
+
+        return result;
     }
 
     private static double clamp(final double min, final double max, final double value) {
         return Math.max(Math.min(value, max), min);
     }
+
+    private static class Scratch {
+        private final Mat adjusted = new Mat();
+        private final Mat result = new Mat();
+        private final MatOfDouble mean = new MatOfDouble();
+        private final MatOfDouble deviation = new MatOfDouble();
+    }
 }
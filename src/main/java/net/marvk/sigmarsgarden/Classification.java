@@ -0,0 +1,48 @@
+package net.marvk.sigmarsgarden;
+
+/**
+ * The tile a captured hex was classified as, with the template matching score of the best template and the margin to
+ * the best template of any other tile. A small margin means the read is shaky.
+ */
+public class Classification {
+    private final Tile tile;
+    private final double score;
+    private final double margin;
+    private final int matches;
+
+    Classification(final Tile tile, final double score, final double margin, final int matches) {
+        this.tile = tile;
+        this.score = score;
+        this.margin = margin;
+        this.matches = matches;
+    }
+
+    public Tile getTile() {
+        return tile;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * @return the score minus the best score of a template of another tile, only counting templates that were matched
+     */
+    public double getMargin() {
+        return margin;
+    }
+
+    public int getMatches() {
+        return matches;
+    }
+
+    @Override
+    public String toString() {
+        return "Classification{" +
+                "tile=" + tile +
+                ", score=" + "%.3f".formatted(score) +
+                ", margin=" + "%.3f".formatted(margin) +
+                ", matches=" + matches +
+                '}';
+    }
+}
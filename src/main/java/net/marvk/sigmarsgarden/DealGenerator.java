@@ -0,0 +1,237 @@
+package net.marvk.sigmarsgarden;
+
+import nu.pattern.OpenCV;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible deals with the tile distribution given by {@link Tile#getAmount()}.
+ * <p>
+ * Solvable deals are built in reverse: starting from an empty board, the moves of a solution are placed one by one so
+ * that every tile of a move is playable on the board it was placed on. Playing the moves back in the opposite order
+ * then solves the deal. Metals are placed from gold down to lead, so no metal is ever blocked when its turn comes.
+ * <p>
+ * Usage: {@code DealGenerator <seed> <count> <output file> [--any]}, where {@code --any} drops the solvability
+ * guarantee and shuffles the tiles onto random hexes instead. Output files ending in {@code .gz} are compressed.
+ */
+public class DealGenerator {
+    static {
+        // Tile loads its templates into OpenCV matrices, so OpenCV has to be loaded before the tile constants below
+        OpenCV.loadLocally();
+    }
+
+    private static final Tile[] ELEMENTS = {Tile.FIRE, Tile.WATER, Tile.AIR, Tile.EARTH};
+    private static final Tile[] METALS_FROM_GOLD = {Tile.GOLD, Tile.SILVER, Tile.COPPER, Tile.IRON, Tile.TIN, Tile.LEAD};
+
+    private static final int PLACEMENT_ATTEMPTS = 64;
+
+    private final Random random;
+    private final boolean solvable;
+
+    /**
+     * @param seed     the seed, generators with the same seed produce the same sequence of deals
+     * @param solvable whether every deal has to be solvable
+     */
+    public DealGenerator(final long seed, final boolean solvable) {
+        this.random = new Random(seed);
+        this.solvable = solvable;
+    }
+
+    public DealGenerator(final long seed) {
+        this(seed, true);
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: DealGenerator <seed> <count> <output file> [--any]");
+            System.exit(1);
+        }
+
+        final long seed = Long.parseLong(args[0]);
+        final long count = Long.parseLong(args[1]);
+        final Path output = Paths.get(args[2]);
+        final boolean solvable = !(args.length > 3 && "--any".equals(args[3]));
+
+        new DealGenerator(seed, solvable).write(output, count);
+    }
+
+    /**
+     * Streams {@code count} deals to a board file, see {@link BoardFormat}
+     */
+    public void write(final Path output, final long count) throws IOException {
+        try (final BufferedWriter writer = BoardFormat.newWriter(output)) {
+            writer.write(BoardFormat.comment("%d %s deals".formatted(count, solvable ? "solvable" : "random")));
+            writer.newLine();
+
+            for (long i = 0; i < count; i++) {
+                writer.write(BoardFormat.format(next()));
+                writer.newLine();
+            }
+        }
+    }
+
+    public Board next() {
+        if (!solvable) {
+            return shuffled();
+        }
+
+        while (true) {
+            final Board board = reverseDeal();
+
+            if (board != null) {
+                return board;
+            }
+        }
+    }
+
+    private Board shuffled() {
+        final List<Tile> tiles = new ArrayList<>(Hex.COUNT);
+
+        for (final Tile tile : Tile.values()) {
+            for (int i = 0; i < tile.getAmount(); i++) {
+                tiles.add(tile);
+            }
+        }
+
+        Collections.shuffle(tiles, random);
+
+        final Board result = Board.empty();
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            result.set(index, tiles.get(index));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return a solvable deal, or {@code null} if the moves could not be placed and generation has to start over
+     */
+    private Board reverseDeal() {
+        final Board board = Board.empty();
+
+        for (final List<Tile> move : reverseSolution()) {
+            if (!place(board, move)) {
+                return null;
+            }
+        }
+
+        return board;
+    }
+
+    /**
+     * @return the moves of a random solution in the order they are removed from the board, reversed
+     */
+    private List<List<Tile>> reverseSolution() {
+        final List<List<Tile>> result = new ArrayList<>();
+
+        final int[] elements = new int[ELEMENTS.length];
+
+        for (int i = 0; i < ELEMENTS.length; i++) {
+            elements[i] = ELEMENTS[i].getAmount();
+        }
+
+        for (int i = 0; i < Tile.UNIVERSAL.getAmount(); i++) {
+            result.add(List.of(Tile.UNIVERSAL, Tile.FIRE, Tile.WATER, Tile.AIR, Tile.EARTH));
+
+            for (int j = 0; j < ELEMENTS.length; j++) {
+                elements[j]--;
+            }
+        }
+
+        int salt = Tile.SALT.getAmount();
+
+        // Salt goes to elements two at a time, so every element count stays even and can be paired up
+        while (salt >= 2) {
+            final int element = random.nextInt(ELEMENTS.length + 1);
+
+            if (element == ELEMENTS.length) {
+                result.add(List.of(Tile.SALT, Tile.SALT));
+            } else if (elements[element] >= 2) {
+                result.add(List.of(Tile.SALT, ELEMENTS[element]));
+                result.add(List.of(Tile.SALT, ELEMENTS[element]));
+                elements[element] -= 2;
+            } else {
+                continue;
+            }
+
+            salt -= 2;
+        }
+
+        for (int i = 0; i < ELEMENTS.length; i++) {
+            for (int j = 0; j < elements[i] / 2; j++) {
+                result.add(List.of(ELEMENTS[i], ELEMENTS[i]));
+            }
+        }
+
+        for (int i = 0; i < Tile.VITAE.getAmount(); i++) {
+            result.add(List.of(Tile.VITAE, Tile.MORS));
+        }
+
+        Collections.shuffle(result, random);
+
+        // Interleave the metals at random positions, but in order from gold down to lead
+        final List<Integer> positions = new ArrayList<>();
+
+        for (int i = 0; i < METALS_FROM_GOLD.length; i++) {
+            positions.add(random.nextInt(result.size() + 1));
+        }
+
+        Collections.sort(positions);
+
+        for (int i = METALS_FROM_GOLD.length - 1; i >= 0; i--) {
+            final Tile metal = METALS_FROM_GOLD[i];
+            result.add(positions.get(i), metal == Tile.GOLD ? List.of(metal) : List.of(Tile.QUICKSILVER, metal));
+        }
+
+        return result;
+    }
+
+    private boolean place(final Board board, final List<Tile> move) {
+        final int[] hexes = new int[move.size()];
+
+        for (int attempt = 0; attempt < PLACEMENT_ATTEMPTS; attempt++) {
+            for (int i = 0; i < hexes.length; i++) {
+                hexes[i] = randomEmptyHex(board);
+                board.set(hexes[i], move.get(i));
+            }
+
+            if (allPlayable(board, hexes)) {
+                return true;
+            }
+
+            for (final int hex : hexes) {
+                board.set(hex, Tile.EMPTY);
+            }
+        }
+
+        return false;
+    }
+
+    private int randomEmptyHex(final Board board) {
+        while (true) {
+            final int index = random.nextInt(Hex.COUNT);
+
+            if (board.get(index) == Tile.EMPTY) {
+                return index;
+            }
+        }
+    }
+
+    private static boolean allPlayable(final Board board, final int[] hexes) {
+        for (final int hex : hexes) {
+            if (!board.isPlayable(hex)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
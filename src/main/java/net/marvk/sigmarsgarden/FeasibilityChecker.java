@@ -0,0 +1,65 @@
+package net.marvk.sigmarsgarden;
+
+/**
+ * Rejects boards that can't be solved based on their tile counts alone. All checks only read the counts {@link Board}
+ * keeps up to date on every move, so they run in constant time.
+ */
+public final class FeasibilityChecker {
+    private static final Tile[] ELEMENTS = {Tile.FIRE, Tile.WATER, Tile.AIR, Tile.EARTH};
+    private static final Tile[] METALS_BELOW_GOLD = {Tile.LEAD, Tile.TIN, Tile.IRON, Tile.COPPER, Tile.SILVER};
+
+    private FeasibilityChecker() {
+        throw new AssertionError("No instances of utility class " + FeasibilityChecker.class);
+    }
+
+    public static boolean isFeasible(final Board board) {
+        return vitaeMorsFeasible(board) && metalsFeasible(board) && elementsFeasible(board);
+    }
+
+    /**
+     * Vitae and Mors can only be removed together
+     */
+    private static boolean vitaeMorsFeasible(final Board board) {
+        return board.count(Tile.VITAE) == board.count(Tile.MORS);
+    }
+
+    /**
+     * Every metal below gold needs its own quicksilver, gold may take one or go alone, and quicksilver can't go with
+     * anything but a metal
+     */
+    private static boolean metalsFeasible(final Board board) {
+        int metals = 0;
+
+        for (final Tile metal : METALS_BELOW_GOLD) {
+            metals += board.count(metal);
+        }
+
+        final int quicksilver = board.count(Tile.QUICKSILVER);
+
+        return quicksilver >= metals && quicksilver <= metals + board.count(Tile.GOLD);
+    }
+
+    /**
+     * Every universal takes one of each element. The rest of each element goes in pairs or with salt, so every element
+     * left with an odd count needs a salt, and the salt left after that has to pair up
+     */
+    private static boolean elementsFeasible(final Board board) {
+        final int universal = board.count(Tile.UNIVERSAL);
+
+        int odd = 0;
+
+        for (final Tile element : ELEMENTS) {
+            final int remaining = board.count(element) - universal;
+
+            if (remaining < 0) {
+                return false;
+            }
+
+            odd += remaining & 1;
+        }
+
+        final int salt = board.count(Tile.SALT);
+
+        return salt >= odd && ((salt - odd) & 1) == 0;
+    }
+}
@@ -0,0 +1,62 @@
+package net.marvk.sigmarsgarden;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Coarse fingerprint of a capture, the mean brightness of each cell of a {@value #GRID} by {@value #GRID} grid. Cheap
+ * enough to compute on every poll and insensitive to single pixel noise, so two captures of a still screen have a
+ * distance close to zero.
+ */
+public class FrameSignature {
+    private static final int GRID = 16;
+
+    /**
+     * Only every n-th pixel of every n-th row is sampled
+     */
+    private static final int STEP = 4;
+
+    private final double[] cells;
+
+    private FrameSignature(final double[] cells) {
+        this.cells = cells;
+    }
+
+    public static FrameSignature of(final BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+
+        final double[] sums = new double[GRID * GRID];
+        final int[] samples = new int[GRID * GRID];
+
+        for (int y = 0; y < height; y += STEP) {
+            final int row = y * GRID / height;
+
+            for (int x = 0; x < width; x += STEP) {
+                final int rgb = image.getRGB(x, y);
+                final int cell = row * GRID + x * GRID / width;
+
+                sums[cell] += ((rgb >> 16 & 0xFF) + (rgb >> 8 & 0xFF) + (rgb & 0xFF)) / 3.0;
+                samples[cell]++;
+            }
+        }
+
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] = samples[i] == 0 ? 0 : sums[i] / samples[i];
+        }
+
+        return new FrameSignature(sums);
+    }
+
+    /**
+     * @return the mean absolute difference in brightness of all cells, between {@code 0} and {@code 255}
+     */
+    public double distance(final FrameSignature other) {
+        double result = 0;
+
+        for (int i = 0; i < cells.length; i++) {
+            result += Math.abs(cells[i] - other.cells[i]);
+        }
+
+        return result / cells.length;
+    }
+}
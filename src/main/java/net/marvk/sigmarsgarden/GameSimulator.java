@@ -0,0 +1,190 @@
+package net.marvk.sigmarsgarden;
+
+import nu.pattern.OpenCV;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless stand-in for the game, so the whole capture, read, solve and execute loop of {@link BoardRobot} can run
+ * without a desktop.
+ * <p>
+ * The board is rendered to a 1920 by 1080 frame with {@link ImageUtil#toImage(BufferedImage[][])}, playable tiles
+ * active and all others inactive, and clicks are applied by hex. A click selects a playable tile, and once the
+ * selected tiles form one of {@link Board#validMoves()} they are removed. Selecting a tile that can't complete a move
+ * together with the current selection starts a new selection. Clicking the new game button deals the next board of a
+ * {@link DealGenerator}.
+ * <p>
+ * Usage: {@code GameSimulator <seed> <games>}
+ */
+public class GameSimulator implements Screen, Input {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+
+    private static final Rectangle NEW_GAME_BUTTON = new Rectangle(840, 866, 60, 40);
+
+    private final DealGenerator deals;
+
+    private Board board = Board.empty();
+    private final List<Hex> selection = new ArrayList<>();
+
+    private Point mouse = new Point(0, 0);
+    private BufferedImage frame;
+
+    private int dealt = 0;
+    private int solved = 0;
+
+    public GameSimulator(final long seed) {
+        this.deals = new DealGenerator(seed);
+    }
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: GameSimulator <seed> <games>");
+            System.exit(1);
+        }
+
+        OpenCV.loadLocally();
+
+        final long seed = Long.parseLong(args[0]);
+        final int games = Integer.parseInt(args[1]);
+
+        final GameSimulator simulator = new GameSimulator(seed);
+        final Path cache = Files.createTempFile("solutions", ".cache");
+
+        try (final SolutionCache solutionCache = SolutionCache.open(cache)) {
+            final BoardRobot robot = new BoardRobot(simulator, simulator, solutionCache, false);
+
+            final long start = System.nanoTime();
+            robot.solve(games);
+            final Duration duration = Duration.ofNanos(System.nanoTime() - start);
+
+            final double gamesPerHour = games / Math.max(duration.toNanos() / 3.6e12, 1e-12);
+
+            System.out.println("SOLVED %d OF %d GAMES IN %s (%.0f GAMES/H)".formatted(simulator.getSolved(), games, duration, gamesPerHour));
+            System.out.println("TOTAL " + robot.getTotalTimings());
+        } finally {
+            Files.deleteIfExists(cache);
+        }
+    }
+
+    @Override
+    public synchronized BufferedImage capture(final Rectangle bounds) {
+        if (frame == null) {
+            frame = ImageUtil.toImage(toImages(board));
+        }
+
+        final BufferedImage result = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB);
+
+        final Graphics2D graphics = result.createGraphics();
+        graphics.drawImage(frame, -bounds.x, -bounds.y, null);
+        graphics.dispose();
+
+        return result;
+    }
+
+    @Override
+    public synchronized void moveMouse(final int x, final int y) {
+        mouse = new Point(x, y);
+    }
+
+    @Override
+    public synchronized void click() {
+        if (NEW_GAME_BUTTON.contains(mouse)) {
+            deal();
+            return;
+        }
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            final Hex hex = Hex.fromIndex(index);
+
+            if (ImageUtil.bounds(hex).contains(mouse)) {
+                select(hex);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void delay(final int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public synchronized int getSolved() {
+        return solved;
+    }
+
+    public synchronized int getDealt() {
+        return dealt;
+    }
+
+    private void deal() {
+        board = deals.next();
+        selection.clear();
+        frame = null;
+        dealt++;
+    }
+
+    private void select(final Hex hex) {
+        if (board.get(hex) == Tile.EMPTY || !board.isPlayable(hex.getIndex())) {
+            return;
+        }
+
+        if (selection.remove(hex)) {
+            return;
+        }
+
+        selection.add(hex);
+
+        final List<Board.Move> moves = board.validMoves();
+
+        if (moves.stream().noneMatch(move -> move.getHexes().containsAll(selection))) {
+            selection.clear();
+            selection.add(hex);
+        }
+
+        for (final Board.Move move : moves) {
+            if (move.size() == selection.size() && move.getHexes().containsAll(selection)) {
+                board.doMove(move);
+                selection.clear();
+                frame = null;
+
+                if (board.isSolved()) {
+                    solved++;
+                }
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * Like the game, draws the tiles that can be selected with their active image and all others with their inactive one
+     */
+    private static BufferedImage[][] toImages(final Board board) {
+        final BufferedImage[][] result = new BufferedImage[Hex.ROWS][];
+
+        for (int y = 0; y < Hex.ROWS; y++) {
+            result[y] = new BufferedImage[Hex.rowLength(y)];
+        }
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            final Hex hex = Hex.fromIndex(index);
+            final Tile tile = board.get(index);
+
+            result[hex.getArrayY()][hex.getArrayX()] = board.isPlayable(index) ? tile.getActive() : tile.getInactive();
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,68 @@
+package net.marvk.sigmarsgarden;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tries moves that free the most blocked tiles, clear the metal chain or use up scarce pairings first and defers moves
+ * that spend flexible tiles like salt and the universal tile. Moves with equal scores keep their natural order.
+ */
+public class HeuristicMoveOrdering implements MoveOrdering {
+    private static final int FREED_TILE_SCORE = 4;
+    private static final int METAL_SCORE = 6;
+    private static final int VITAE_MORS_SCORE = 3;
+    private static final int SALT_SCORE = -4;
+    private static final int UNIVERSAL_SCORE = -6;
+
+    @Override
+    public List<Board.Move> order(final Board board, final List<Board.Move> moves) {
+        if (moves.size() < 2) {
+            return moves;
+        }
+
+        final int numPlayable = board.numPlayable();
+
+        final int[] scores = new int[moves.size()];
+        final Integer[] order = new Integer[moves.size()];
+
+        for (int i = 0; i < moves.size(); i++) {
+            scores[i] = score(board, moves.get(i), numPlayable);
+            order[i] = i;
+        }
+
+        Arrays.sort(order, (i1, i2) -> Integer.compare(scores[i2], scores[i1]));
+
+        final Board.Move[] result = new Board.Move[moves.size()];
+
+        for (int i = 0; i < order.length; i++) {
+            result[i] = moves.get(order[i]);
+        }
+
+        return List.of(result);
+    }
+
+    private static int score(final Board board, final Board.Move move, final int numPlayable) {
+        board.doMove(move);
+        // Tiles that were playable stay playable, so every tile beyond that was freed by this move
+        final int freed = board.numPlayable() - (numPlayable - move.size());
+        board.undoMove(move);
+
+        int score = freed * FREED_TILE_SCORE;
+
+        for (final Tile tile : move.getTiles()) {
+            score += tileScore(tile);
+        }
+
+        return score;
+    }
+
+    private static int tileScore(final Tile tile) {
+        return switch (tile) {
+            case QUICKSILVER, LEAD, TIN, IRON, COPPER, SILVER, GOLD -> METAL_SCORE;
+            case VITAE, MORS -> VITAE_MORS_SCORE;
+            case SALT -> SALT_SCORE;
+            case UNIVERSAL -> UNIVERSAL_SCORE;
+            default -> 0;
+        };
+    }
+}
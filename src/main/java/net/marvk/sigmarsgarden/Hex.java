@@ -1,13 +1,48 @@
 package net.marvk.sigmarsgarden;
 
 public class Hex {
+    public static final int ROWS = 11;
+    public static final int COUNT = 91;
+    public static final int OFF_BOARD = -1;
+
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, -1}, {-1, -1}, {-1, 0}, {0, 1}, {1, 1}};
+
+    private static final int[] ROW_START = new int[ROWS + 1];
+    private static final Hex[] HEXES = new Hex[COUNT];
+
+    static {
+        for (int y = 0; y < ROWS; y++) {
+            ROW_START[y + 1] = ROW_START[y] + rowLength(y);
+
+            for (int x = 0; x < rowLength(y); x++) {
+                final int index = ROW_START[y] + x;
+                HEXES[index] = new Hex(convertXfromArrayToHex(x, y), y, x, index);
+            }
+        }
+
+        for (final Hex hex : HEXES) {
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                final Hex neighbour = hex.translate(DIRECTIONS[i][0], DIRECTIONS[i][1]);
+
+                hex.neighbours[i] = neighbour;
+                hex.neighbourIndices[i] = neighbour.index;
+            }
+        }
+    }
+
     private final int x;
     private final int y;
+    private final int arrayX;
+    private final int index;
+
+    private final Hex[] neighbours = new Hex[DIRECTIONS.length];
+    private final int[] neighbourIndices = new int[DIRECTIONS.length];
 
-    public Hex(final int x, final int y) {
+    private Hex(final int x, final int y, final int arrayX, final int index) {
         this.x = x;
         this.y = y;
-
+        this.arrayX = arrayX;
+        this.index = index;
     }
 
     public int getHexX() {
@@ -19,36 +54,77 @@ public class Hex {
     }
 
     public int getArrayX() {
-        return convertXFromHexToArray(x, y);
+        return arrayX;
     }
 
     public int getArrayY() {
         return y;
     }
 
+    /**
+     * @return the dense row-major index of this hex in {@code [0, COUNT)}, or {@link #OFF_BOARD}
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isOnBoard() {
+        return index != OFF_BOARD;
+    }
+
     public Hex[] neighbours() {
-        return new Hex[]{
-                translate(1, 0),
-                translate(0, -1),
-                translate(-1, -1),
-                translate(-1, 0),
-                translate(0, 1),
-                translate(1, 1)
-        };
+        if (isOnBoard()) {
+            return neighbours.clone();
+        }
+
+        final Hex[] result = new Hex[DIRECTIONS.length];
+
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            result[i] = translate(DIRECTIONS[i][0], DIRECTIONS[i][1]);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the index of the neighbour in the given direction, or {@link #OFF_BOARD} if it is not on the board
+     */
+    public int neighbourIndex(final int direction) {
+        if (isOnBoard()) {
+            return neighbourIndices[direction];
+        }
+
+        return translate(DIRECTIONS[direction][0], DIRECTIONS[direction][1]).index;
+    }
+
+    public static Hex fromIndex(final int index) {
+        return HEXES[index];
     }
 
     public static Hex fromHexCoords(final int x, final int y) {
-        return new Hex(x, y);
+        return of(x, y, convertXFromHexToArray(x, y));
     }
 
     public static Hex fromArrayCoords(final int x, final int y) {
-        return new Hex(convertXfromArrayToHex(x, y), y);
+        return of(convertXfromArrayToHex(x, y), y, x);
+    }
+
+    private static Hex of(final int x, final int y, final int arrayX) {
+        if (y < 0 || y >= ROWS || arrayX < 0 || arrayX >= rowLength(y)) {
+            return new Hex(x, y, arrayX, OFF_BOARD);
+        }
+
+        return HEXES[ROW_START[y] + arrayX];
     }
 
     public Hex translate(final int dx, final int dy) {
         return fromHexCoords(x + dx, y + dy);
     }
 
+    public static int rowLength(final int y) {
+        return ROWS / 2 + 1 + ROWS / 2 - Math.abs(y - ROWS / 2);
+    }
+
     private static int convertXFromHexToArray(final int x, final int y) {
         if (y < 6) {
             return x;
@@ -65,6 +141,24 @@ public class Hex {
         return x + y - 5;
     }
 
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final Hex hex = (Hex) o;
+
+        if (x != hex.x) return false;
+        return y == hex.y;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = x;
+        result = 31 * result + y;
+        return result;
+    }
+
     @Override
     public String toString() {
         return "Hex{" +
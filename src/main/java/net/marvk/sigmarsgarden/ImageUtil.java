@@ -1,15 +1,14 @@
 package net.marvk.sigmarsgarden;
 
-import lombok.SneakyThrows;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfByte;
-import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.core.Rect;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.awt.image.DataBufferByte;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.nio.file.Path;
 
@@ -20,26 +19,68 @@ public class ImageUtil {
     public static final int X_START = 1026;
     public static final int Y_DIST = 5;
     public static final int Y_START = 195;
-    private static final int PADDING = 10;
+    static final int PADDING = 10;
     private static final int ROWS = 11;
 
+    /**
+     * Smallest rectangle of the screen that contains every tile, the only part of the screen the vision looks at
+     */
+    public static final Rectangle BOARD_BOUNDS = boardBounds();
+
     private ImageUtil() {
         throw new AssertionError("No instances of utility class " + ImageUtil.class);
     }
 
-    @SneakyThrows
+    /**
+     * Copies the pixels of an image into a single channel {@link CvType#CV_8UC1} {@link Mat}, images that are not
+     * {@link BufferedImage#TYPE_BYTE_GRAY} are converted to grayscale first
+     */
     public static Mat bufferedImageToMat(final BufferedImage image) {
-        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        ImageIO.write(image, "png", byteArrayOutputStream);
-        byteArrayOutputStream.flush();
-        return Imgcodecs.imdecode(new MatOfByte(byteArrayOutputStream.toByteArray()), Imgcodecs.IMREAD_UNCHANGED);
+        final BufferedImage gray = image.getType() == BufferedImage.TYPE_BYTE_GRAY ? image : monochrome(image);
+
+        final Mat result = new Mat(gray.getHeight(), gray.getWidth(), CvType.CV_8UC1);
+        result.put(0, 0, grayPixels(gray));
+
+        return result;
     }
 
-    @SneakyThrows
+    /**
+     * Copies the pixels of a single channel or BGR {@link Mat} into a {@link BufferedImage}
+     */
     public static BufferedImage matToBufferedImage(final Mat mat) {
-        final MatOfByte matOfByte = new MatOfByte();
-        Imgcodecs.imencode(".jpg", mat, matOfByte);
-        return ImageIO.read(new ByteArrayInputStream(matOfByte.toArray()));
+        final int type;
+
+        if (mat.type() == CvType.CV_8UC1) {
+            type = BufferedImage.TYPE_BYTE_GRAY;
+        } else if (mat.type() == CvType.CV_8UC3) {
+            type = BufferedImage.TYPE_3BYTE_BGR;
+        } else {
+            throw new IllegalArgumentException("Unsupported mat type " + CvType.typeToString(mat.type()));
+        }
+
+        final BufferedImage result = new BufferedImage(mat.cols(), mat.rows(), type);
+        mat.get(0, 0, ((DataBufferByte) result.getRaster().getDataBuffer()).getData());
+
+        return result;
+    }
+
+    /**
+     * @return the backing array of the image if it holds exactly its pixels, a packed copy of its pixels otherwise, for
+     * example for images returned by {@link BufferedImage#getSubimage(int, int, int, int)}
+     */
+    private static byte[] grayPixels(final BufferedImage gray) {
+        final WritableRaster raster = gray.getRaster();
+        final int length = gray.getWidth() * gray.getHeight();
+
+        if (raster.getParent() == null && raster.getDataBuffer() instanceof DataBufferByte) {
+            final DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+
+            if (buffer.getOffset() == 0 && buffer.getData().length == length) {
+                return buffer.getData();
+            }
+        }
+
+        return (byte[]) raster.getDataElements(0, 0, gray.getWidth(), gray.getHeight(), new byte[length]);
     }
 
     public static BufferedImage loadImageMonochrome(final Path path) throws IOException {
@@ -141,6 +182,64 @@ public class ImageUtil {
         return result;
     }
 
+    /**
+     * Splits a capture into one region of interest per hex, the returned {@link Mat}s share the pixels of the capture
+     *
+     * @param origin the screen position of the top left pixel of the capture
+     */
+    public static Mat[][] split(final Mat image, final Point origin) {
+        final Mat[][] result = new Mat[ROWS][];
+
+        for (int y = 0; y < ROWS; y++) {
+            final int rowOffset = rowOffset(y);
+
+            final int xMax = xMax(rowOffset);
+            final int yPixel = yPixel(y);
+
+            result[y] = new Mat[xMax];
+
+            for (int x = 0; x < xMax; x++) {
+                final int xPixel = xPixel(rowOffset, x);
+
+                result[y][x] = image.submat(new Rect(xPixel - origin.x, yPixel - origin.y, SIZE, SIZE));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the screen position of the top left pixel of a capture, either a capture of {@link #BOARD_BOUNDS} or a
+     * full screen capture
+     */
+    public static Point origin(final BufferedImage capture) {
+        if (capture.getWidth() == BOARD_BOUNDS.width && capture.getHeight() == BOARD_BOUNDS.height) {
+            return BOARD_BOUNDS.getLocation();
+        }
+
+        return new Point(0, 0);
+    }
+
+    /**
+     * @return the bounds of the tile of a hex in a full screen capture
+     */
+    public static Rectangle bounds(final Hex hex) {
+        final int y = hex.getArrayY();
+
+        return new Rectangle(xPixel(rowOffset(y), hex.getArrayX()), yPixel(y), SIZE, SIZE);
+    }
+
+    private static Rectangle boardBounds() {
+        Rectangle result = null;
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            final Rectangle bounds = bounds(Hex.fromIndex(index));
+            result = result == null ? bounds : result.union(bounds);
+        }
+
+        return result;
+    }
+
     private static int rowOffset(final int y) {
         return ROWS / 2 - Math.abs(y - ROWS / 2);
     }
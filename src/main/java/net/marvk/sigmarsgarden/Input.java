@@ -0,0 +1,12 @@
+package net.marvk.sigmarsgarden;
+
+public interface Input {
+    void moveMouse(final int x, final int y);
+
+    void click();
+
+    /**
+     * Waits for the given time, giving the game time to react to the input
+     */
+    void delay(final int millis);
+}
@@ -0,0 +1,26 @@
+package net.marvk.sigmarsgarden;
+
+import java.util.List;
+
+/**
+ * Decides in which order {@link BoardSolver} explores the valid moves of a board
+ */
+public interface MoveOrdering {
+    /**
+     * @param board the board the moves are valid on, must be left unchanged
+     * @param moves the valid moves as generated by {@link Board#validMoves()}
+     * @return the moves in the order they should be tried
+     */
+    List<Board.Move> order(final Board board, final List<Board.Move> moves);
+
+    /**
+     * @return an ordering that keeps the moves in the order {@link Board#validMoves()} generates them in
+     */
+    static MoveOrdering natural() {
+        return (board, moves) -> moves;
+    }
+
+    static MoveOrdering heuristic() {
+        return new HeuristicMoveOrdering();
+    }
+}
@@ -0,0 +1,103 @@
+package net.marvk.sigmarsgarden;
+
+import nu.pattern.OpenCV;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Solves every board of a corpus with each {@link MoveOrdering} and prints the number of nodes each ordering expanded,
+ * so orderings can be compared on the same deals. The corpus is either a board file or deals from a {@link
+ * DealGenerator}.
+ * <p>
+ * Usage: {@code MoveOrderingComparison <board file>} or {@code MoveOrderingComparison <seed> <count>}
+ */
+public class MoveOrderingComparison {
+    private static final SolverBudget BUDGET = SolverBudget.unlimited().withTime(Duration.ofSeconds(10));
+
+    private final Map<String, MoveOrdering> orderings;
+
+    public MoveOrderingComparison(final Map<String, MoveOrdering> orderings) {
+        this.orderings = orderings;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: MoveOrderingComparison <board file> | <seed> <count>");
+            System.exit(1);
+        }
+
+        OpenCV.loadLocally();
+
+        final Map<String, MoveOrdering> orderings = new LinkedHashMap<>();
+        orderings.put("natural", MoveOrdering.natural());
+        orderings.put("heuristic", MoveOrdering.heuristic());
+
+        final Map<String, Board> corpus = args.length > 1
+                ? generateCorpus(Long.parseLong(args[0]), Integer.parseInt(args[1]))
+                : readCorpus(Paths.get(args[0]));
+
+        new MoveOrderingComparison(orderings).compare(corpus);
+    }
+
+    private static Map<String, Board> readCorpus(final Path boardFile) throws IOException {
+        final List<Board> boards = BoardFormat.read(boardFile);
+
+        final Map<String, Board> result = new LinkedHashMap<>();
+
+        for (int i = 0; i < boards.size(); i++) {
+            result.put("board %d".formatted(i), boards.get(i));
+        }
+
+        return result;
+    }
+
+    private static Map<String, Board> generateCorpus(final long seed, final int count) {
+        final DealGenerator generator = new DealGenerator(seed);
+
+        final Map<String, Board> result = new LinkedHashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            result.put("deal %d".formatted(i), generator.next());
+        }
+
+        return result;
+    }
+
+    public void compare(final Map<String, Board> corpus) throws InterruptedException {
+        final Map<String, Long> totalNodes = new LinkedHashMap<>();
+        final Map<String, Integer> failures = new LinkedHashMap<>();
+
+        for (final Map.Entry<String, Board> entry : corpus.entrySet()) {
+            final StringBuilder line = new StringBuilder(entry.getKey());
+
+            for (final Map.Entry<String, MoveOrdering> ordering : orderings.entrySet()) {
+                final BoardSolver solver = new BoardSolver(new TranspositionTable(), 1, ordering.getValue());
+                final SolverResult result = solver.solve(entry.getValue().copy(), BUDGET);
+
+                if (!result.isSolved()) {
+                    failures.merge(ordering.getKey(), 1, Integer::sum);
+                }
+
+                final String status = result.getStatus().name().toLowerCase(Locale.ROOT);
+
+                totalNodes.merge(ordering.getKey(), (long) result.getIterations(), Long::sum);
+                line.append("\t%s=%d (%s)".formatted(ordering.getKey(), result.getIterations(), status));
+            }
+
+            System.out.println(line);
+        }
+
+        System.out.println("TOTAL OVER %d BOARDS".formatted(corpus.size()));
+
+        for (final String name : orderings.keySet()) {
+            System.out.println("%s: %d nodes, %d unsolved".formatted(name, totalNodes.getOrDefault(name, 0L), failures.getOrDefault(name, 0)));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package net.marvk.sigmarsgarden;
+
+import java.awt.*;
+import java.awt.event.InputEvent;
+
+public class RobotInput implements Input {
+    private final Robot robot;
+
+    public RobotInput(final Robot robot) {
+        this.robot = robot;
+    }
+
+    @Override
+    public void moveMouse(final int x, final int y) {
+        robot.mouseMove(x, y);
+    }
+
+    @Override
+    public void click() {
+        robot.mousePress(InputEvent.BUTTON1_DOWN_MASK);
+        robot.delay(10);
+        robot.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
+    }
+
+    @Override
+    public void delay(final int millis) {
+        robot.delay(millis);
+    }
+}
@@ -0,0 +1,17 @@
+package net.marvk.sigmarsgarden;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class RobotScreen implements Screen {
+    private final Robot robot;
+
+    public RobotScreen(final Robot robot) {
+        this.robot = robot;
+    }
+
+    @Override
+    public BufferedImage capture(final Rectangle bounds) {
+        return robot.createScreenCapture(bounds);
+    }
+}
@@ -0,0 +1,12 @@
+package net.marvk.sigmarsgarden;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public interface Screen {
+    /**
+     * @param bounds the region to capture, in screen coordinates
+     * @return an image of the region, of the same size as the region
+     */
+    BufferedImage capture(final Rectangle bounds);
+}
@@ -0,0 +1,237 @@
+package net.marvk.sigmarsgarden;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Append-only file of solved and proven unsolvable deals, memory-mapped so lookups read the solution straight from the
+ * page cache and survive restarts.
+ * <p>
+ * The file starts with a header of the magic number, the format version and the number of bytes used by records. Each
+ * record holds its status, the deal packed into {@value #BOARD_BYTES} bytes of one {@link Tile} ordinal per nibble, and
+ * the moves of its solution as a count followed by the hex indices. Records are found through an in-memory index from
+ * the {@link Board#hash() Zobrist hash} of the deal to the record offset, which is rebuilt from the file when it is
+ * opened. The packed deal is compared in full on every lookup, so hash collisions read as misses.
+ */
+public class SolutionCache implements Closeable {
+    private static final int MAGIC = 0x5347_5343;
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 16;
+    private static final int USED_OFFSET = 8;
+
+    private static final int BOARD_BYTES = (Hex.COUNT + 1) / 2;
+
+    private static final byte SOLVED = 1;
+    private static final byte UNSOLVABLE = 2;
+
+    private static final long INITIAL_CAPACITY = 64L * 1024;
+
+    private final FileChannel channel;
+    private final Map<Long, Integer> index = new HashMap<>();
+
+    private MappedByteBuffer buffer;
+    private int used;
+
+    private SolutionCache(final FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        if (channel.size() == 0) {
+            map(INITIAL_CAPACITY);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            setUsed(HEADER_BYTES);
+        } else {
+            map(channel.size());
+            readHeader();
+            readIndex();
+        }
+    }
+
+    /**
+     * Opens the cache file, creating it if it does not exist yet
+     */
+    public static SolutionCache open(final Path path) throws IOException {
+        return new SolutionCache(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * @return a {@link SolverResult.Status#SOLVED SOLVED} result with the solution or an {@link
+     * SolverResult.Status#UNSOLVABLE UNSOLVABLE} result if the deal is cached, empty otherwise
+     */
+    public synchronized Optional<SolverResult> get(final Board board) {
+        final Integer offset = index.get(board.hash());
+
+        if (offset == null || !matches(offset, pack(board))) {
+            return Optional.empty();
+        }
+
+        if (buffer.get(offset) == UNSOLVABLE) {
+            return Optional.of(new SolverResult(SolverResult.Status.UNSOLVABLE, List.of(), 0, Duration.ZERO, null));
+        }
+
+        return Optional.of(new SolverResult(SolverResult.Status.SOLVED, readSolution(board, offset + 1 + BOARD_BYTES), 0, Duration.ZERO, null));
+    }
+
+    /**
+     * Appends the result of solving a deal. Results that ran out of budget prove nothing and are not stored
+     *
+     * @param board  the deal as it was before solving
+     * @param result the result of solving the deal
+     */
+    public synchronized void put(final Board board, final SolverResult result) throws IOException {
+        if (result.getStatus() == SolverResult.Status.BUDGET_EXHAUSTED) {
+            return;
+        }
+
+        final List<Board.Move> solution = result.getSolution();
+
+        int length = 1 + BOARD_BYTES + 1;
+
+        for (final Board.Move move : solution) {
+            length += 1 + move.size();
+        }
+
+        if (used + length > buffer.capacity()) {
+            map(Math.max(2L * buffer.capacity(), used + length));
+        }
+
+        final ByteBuffer record = buffer.duplicate();
+        record.position(used);
+        record.put(result.isSolved() ? SOLVED : UNSOLVABLE);
+        record.put(pack(board));
+        record.put((byte) solution.size());
+
+        for (final Board.Move move : solution) {
+            record.put((byte) move.size());
+
+            for (final Hex hex : move.getHexes()) {
+                record.put((byte) hex.getIndex());
+            }
+        }
+
+        index.put(board.hash(), used);
+
+        // The record is complete before the header points past it, so a crash never exposes a partial record
+        setUsed(used + length);
+        buffer.force();
+    }
+
+    /**
+     * @return the number of cached deals
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void map(final long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Solution cache exceeds %d bytes".formatted(Integer.MAX_VALUE));
+        }
+
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void readHeader() throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a solution cache");
+        }
+
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported solution cache version " + buffer.getInt(4));
+        }
+
+        used = (int) buffer.getLong(USED_OFFSET);
+
+        if (used < HEADER_BYTES || used > buffer.capacity()) {
+            throw new IOException("Corrupt solution cache header, %d bytes used of %d".formatted(used, buffer.capacity()));
+        }
+    }
+
+    private void readIndex() {
+        final byte[] packed = new byte[BOARD_BYTES];
+
+        int offset = HEADER_BYTES;
+
+        while (offset < used) {
+            buffer.get(offset + 1, packed);
+            index.put(unpack(packed).hash(), offset);
+
+            int position = offset + 1 + BOARD_BYTES;
+            final int moves = Byte.toUnsignedInt(buffer.get(position++));
+
+            for (int i = 0; i < moves; i++) {
+                position += 1 + buffer.get(position);
+            }
+
+            offset = position;
+        }
+    }
+
+    private void setUsed(final int used) {
+        this.used = used;
+        buffer.putLong(USED_OFFSET, used);
+    }
+
+    private boolean matches(final int offset, final byte[] packed) {
+        return buffer.slice(offset + 1, BOARD_BYTES).equals(ByteBuffer.wrap(packed));
+    }
+
+    private List<Board.Move> readSolution(final Board board, final int offset) {
+        int position = offset;
+        final int moves = Byte.toUnsignedInt(buffer.get(position++));
+
+        final List<Board.Move> result = new ArrayList<>(moves);
+
+        for (int i = 0; i < moves; i++) {
+            final int size = buffer.get(position++);
+            final List<Hex> hexes = new ArrayList<>(size);
+
+            for (int j = 0; j < size; j++) {
+                hexes.add(Hex.fromIndex(buffer.get(position++)));
+            }
+
+            result.add(board.new Move(hexes));
+        }
+
+        return result;
+    }
+
+    private static byte[] pack(final Board board) {
+        final byte[] result = new byte[BOARD_BYTES];
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            result[index / 2] |= board.get(index).ordinal() << (index % 2 * 4);
+        }
+
+        return result;
+    }
+
+    private static Board unpack(final byte[] packed) {
+        final Tile[] tiles = Tile.values();
+        final Board result = Board.empty();
+
+        for (int index = 0; index < Hex.COUNT; index++) {
+            result.set(index, tiles[packed[index / 2] >> (index % 2 * 4) & 0xF]);
+        }
+
+        return result;
+    }
+}
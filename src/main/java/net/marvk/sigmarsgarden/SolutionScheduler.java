@@ -0,0 +1,139 @@
+package net.marvk.sigmarsgarden;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reorders the moves of a solution to shorten the path the mouse travels while playing it.
+ * <p>
+ * Removing tiles only ever frees hexes and metals only ever become unblocked, so a move that is valid stays valid
+ * until it is played. Of the remaining moves, the first one in solution order is therefore always valid, and greedily
+ * playing whichever valid move is closest to the mouse always completes the solution.
+ */
+public final class SolutionScheduler {
+    private SolutionScheduler() {
+        throw new AssertionError("No instances of utility class " + SolutionScheduler.class);
+    }
+
+    /**
+     * @param board    the board the solution starts on, not modified
+     * @param solution the moves of a solution of the board
+     * @param start    the screen position of the mouse before the first click
+     * @return the moves of the solution in the order to play them, the hexes of every move in the order to click them
+     */
+    public static List<Board.Move> schedule(final Board board, final List<Board.Move> solution, final Point start) {
+        final Board current = board.copy();
+        final List<Board.Move> remaining = new ArrayList<>(solution);
+        final List<Board.Move> result = new ArrayList<>(solution.size());
+
+        Point position = start;
+
+        while (!remaining.isEmpty()) {
+            Board.Move best = null;
+            double bestDistance = Double.POSITIVE_INFINITY;
+
+            for (final Board.Move move : remaining) {
+                if (!isValid(current, move)) {
+                    continue;
+                }
+
+                final Board.Move ordered = clickOrder(current, move, position);
+                final double distance = distance(position, ordered.getHexes());
+
+                if (distance < bestDistance) {
+                    best = ordered;
+                    bestDistance = distance;
+                }
+            }
+
+            if (best == null) {
+                throw new IllegalArgumentException("Moves " + remaining + " can not be played");
+            }
+
+            remaining.removeIf(best::sameHexes);
+            result.add(best);
+            current.doMove(best);
+            position = screenPosition(best.getHexes().get(best.size() - 1));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return whether every hex of the move is playable on the board, in which case the move can be played right away
+     */
+    public static boolean isValid(final Board board, final Board.Move move) {
+        for (final Hex hex : move.getHexes()) {
+            if (!board.isPlayable(hex.getIndex())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public static double travel(final List<Board.Move> moves, final Point start) {
+        double result = 0;
+        Point position = start;
+
+        for (final Board.Move move : moves) {
+            result += distance(position, move.getHexes());
+            position = screenPosition(move.getHexes().get(move.size() - 1));
+        }
+
+        return result;
+    }
+
+    /**
+     * Orders the hexes of a move by always clicking the closest remaining one next. The universal tile of a five tile
+     * move is always clicked first.
+     */
+    private static Board.Move clickOrder(final Board board, final Board.Move move, final Point start) {
+        final List<Hex> remaining = new ArrayList<>(move.getHexes());
+        final List<Hex> result = new ArrayList<>(remaining.size());
+
+        Point position = start;
+
+        final int universal = move.getTiles().indexOf(Tile.UNIVERSAL);
+
+        if (universal >= 0) {
+            final Hex hex = remaining.remove(universal);
+            result.add(hex);
+            position = screenPosition(hex);
+        }
+
+        while (!remaining.isEmpty()) {
+            Hex closest = null;
+
+            for (final Hex hex : remaining) {
+                if (closest == null || position.distance(screenPosition(hex)) < position.distance(screenPosition(closest))) {
+                    closest = hex;
+                }
+            }
+
+            remaining.remove(closest);
+            result.add(closest);
+            position = screenPosition(closest);
+        }
+
+        return board.new Move(result);
+    }
+
+    private static double distance(final Point start, final List<Hex> hexes) {
+        double result = 0;
+        Point position = start;
+
+        for (final Hex hex : hexes) {
+            final Point next = screenPosition(hex);
+            result += position.distance(next);
+            position = next;
+        }
+
+        return result;
+    }
+
+    private static Point screenPosition(final Hex hex) {
+        return new Point(BoardRobot.screenX(hex), BoardRobot.screenY(hex));
+    }
+}
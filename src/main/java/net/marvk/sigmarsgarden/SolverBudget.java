@@ -0,0 +1,71 @@
+package net.marvk.sigmarsgarden;
+
+import java.time.Duration;
+
+/**
+ * Limits on a single {@link BoardSolver#solve(Board, SolverBudget)}. The search checks them every
+ * {@value BoardSolver#CHECK_INTERVAL} nodes and stops with {@link SolverResult.Status#BUDGET_EXHAUSTED} once one is
+ * exceeded.
+ */
+public final class SolverBudget {
+    private static final SolverBudget UNLIMITED = new SolverBudget(null, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final Duration time;
+    private final long nodes;
+    private final long memoryBytes;
+
+    private SolverBudget(final Duration time, final long nodes, final long memoryBytes) {
+        this.time = time;
+        this.nodes = nodes;
+        this.memoryBytes = memoryBytes;
+    }
+
+    public static SolverBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    public SolverBudget withTime(final Duration time) {
+        return new SolverBudget(time, nodes, memoryBytes);
+    }
+
+    public SolverBudget withNodes(final long nodes) {
+        return new SolverBudget(time, nodes, memoryBytes);
+    }
+
+    /**
+     * @param memoryBytes the maximum heap in use by the whole JVM, as reported by {@link Runtime}
+     */
+    public SolverBudget withMemory(final long memoryBytes) {
+        return new SolverBudget(time, nodes, memoryBytes);
+    }
+
+    /**
+     * @param elapsedNanos the time spent solving so far
+     */
+    boolean exceedsTime(final long elapsedNanos) {
+        return time != null && elapsedNanos >= time.toNanos();
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    boolean exceedsMemory() {
+        if (memoryBytes == Long.MAX_VALUE) {
+            return false;
+        }
+
+        final Runtime runtime = Runtime.getRuntime();
+
+        return runtime.totalMemory() - runtime.freeMemory() > memoryBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverBudget{" +
+                "time=" + time +
+                ", nodes=" + nodes +
+                ", memoryBytes=" + memoryBytes +
+                '}';
+    }
+}
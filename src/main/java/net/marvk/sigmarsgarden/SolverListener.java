@@ -0,0 +1,10 @@
+package net.marvk.sigmarsgarden;
+
+/**
+ * Receives the metrics of a {@link BoardSolver} once a solve finished, whether it found a solution, failed or was
+ * interrupted. Setting a listener is what enables metric collection, without one the search records nothing.
+ */
+@FunctionalInterface
+public interface SolverListener {
+    void solveFinished(final SolverMetrics metrics);
+}
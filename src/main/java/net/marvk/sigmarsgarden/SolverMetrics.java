@@ -0,0 +1,170 @@
+package net.marvk.sigmarsgarden;
+
+import java.util.Arrays;
+
+/**
+ * Counters collected by a {@link BoardSolver} while searching.
+ * <p>
+ * Every sequential search records into its own instance without synchronization, instances are merged once the
+ * search is done. Depth is the number of moves played from the initial board.
+ */
+public class SolverMetrics {
+    private static final int MAX_DEPTH = Hex.COUNT;
+
+    private final long[] nodesPerDepth = new long[MAX_DEPTH + 1];
+    private final long[] movesPerDepth = new long[MAX_DEPTH + 1];
+
+    private long transpositionHits;
+    private long transpositionMisses;
+    private long infeasible;
+
+    private long moveGenerationNanos;
+    private long hashingNanos;
+    private long elapsedNanos;
+
+    void node(final int depth, final int moves) {
+        nodesPerDepth[depth]++;
+        movesPerDepth[depth] += moves;
+    }
+
+    void infeasible() {
+        infeasible++;
+    }
+
+    void transposition(final boolean hit) {
+        if (hit) {
+            transpositionHits++;
+        } else {
+            transpositionMisses++;
+        }
+    }
+
+    void moveGeneration(final long nanos) {
+        moveGenerationNanos += nanos;
+    }
+
+    void hashing(final long nanos) {
+        hashingNanos += nanos;
+    }
+
+    void elapsed(final long nanos) {
+        elapsedNanos = nanos;
+    }
+
+    synchronized void merge(final SolverMetrics other) {
+        for (int i = 0; i <= MAX_DEPTH; i++) {
+            nodesPerDepth[i] += other.nodesPerDepth[i];
+            movesPerDepth[i] += other.movesPerDepth[i];
+        }
+
+        transpositionHits += other.transpositionHits;
+        transpositionMisses += other.transpositionMisses;
+        infeasible += other.infeasible;
+        moveGenerationNanos += other.moveGenerationNanos;
+        hashingNanos += other.hashingNanos;
+    }
+
+    /**
+     * @return the number of expanded nodes, matching {@link BoardSolver#getIterations()}
+     */
+    public synchronized long getNodes() {
+        return Arrays.stream(nodesPerDepth).sum();
+    }
+
+    public synchronized double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getNodes() / (elapsedNanos / 1e9);
+    }
+
+    public synchronized long getTranspositionHits() {
+        return transpositionHits;
+    }
+
+    public synchronized long getTranspositionMisses() {
+        return transpositionMisses;
+    }
+
+    /**
+     * @return the number of boards cut by the {@link FeasibilityChecker} without being expanded
+     */
+    public synchronized long getInfeasible() {
+        return infeasible;
+    }
+
+    public synchronized int getMaxDepth() {
+        for (int depth = MAX_DEPTH; depth >= 0; depth--) {
+            if (nodesPerDepth[depth] > 0) {
+                return depth;
+            }
+        }
+
+        return 0;
+    }
+
+    public synchronized double getAverageDepth() {
+        long nodes = 0;
+        long depths = 0;
+
+        for (int depth = 0; depth <= MAX_DEPTH; depth++) {
+            nodes += nodesPerDepth[depth];
+            depths += depth * nodesPerDepth[depth];
+        }
+
+        return nodes == 0 ? 0 : (double) depths / nodes;
+    }
+
+    /**
+     * @return the number of expanded nodes at every depth up to {@link #getMaxDepth()}
+     */
+    public synchronized long[] getDepthHistogram() {
+        return Arrays.copyOf(nodesPerDepth, getMaxDepth() + 1);
+    }
+
+    /**
+     * @return the average number of valid moves of the nodes expanded at the depth
+     */
+    public synchronized double getBranchingFactor(final int depth) {
+        return nodesPerDepth[depth] == 0 ? 0 : (double) movesPerDepth[depth] / nodesPerDepth[depth];
+    }
+
+    /**
+     * @return the time spent generating and ordering moves
+     */
+    public synchronized long getMoveGenerationNanos() {
+        return moveGenerationNanos;
+    }
+
+    /**
+     * @return the time spent storing and looking up board hashes in the transposition table
+     */
+    public synchronized long getHashingNanos() {
+        return hashingNanos;
+    }
+
+    public synchronized long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder branching = new StringBuilder();
+
+        for (int depth = 0; depth <= getMaxDepth(); depth++) {
+            branching.append(depth == 0 ? "" : " ").append("%.1f".formatted(getBranchingFactor(depth)));
+        }
+
+        return "SolverMetrics{" +
+                "nodes=" + getNodes() +
+                ", nodesPerSecond=" + Math.round(getNodesPerSecond()) +
+                ", transpositionHits=" + transpositionHits +
+                ", transpositionMisses=" + transpositionMisses +
+                ", infeasible=" + infeasible +
+                ", maxDepth=" + getMaxDepth() +
+                ", averageDepth=" + "%.2f".formatted(getAverageDepth()) +
+                ", depthHistogram=" + Arrays.toString(getDepthHistogram()) +
+                ", branchingFactors=[" + branching + "]" +
+                ", moveGenerationMillis=" + moveGenerationNanos / 1_000_000 +
+                ", hashingMillis=" + hashingNanos / 1_000_000 +
+                ", elapsedMillis=" + elapsedNanos / 1_000_000 +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+package net.marvk.sigmarsgarden;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+public final class SolverResult {
+    public enum Status {
+        SOLVED,
+        /**
+         * The whole search space was explored without finding a solution
+         */
+        UNSOLVABLE,
+        /**
+         * The search was stopped by its {@link SolverBudget} before it found a solution
+         */
+        BUDGET_EXHAUSTED
+    }
+
+    private final Status status;
+    private final List<Board.Move> solution;
+    private final int iterations;
+    private final Duration duration;
+    private final SolverMetrics metrics;
+
+    SolverResult(final Status status, final List<Board.Move> solution, final int iterations, final Duration duration, final SolverMetrics metrics) {
+        this.status = status;
+        this.solution = solution;
+        this.iterations = iterations;
+        this.duration = duration;
+        this.metrics = metrics;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * @return the solution if the board was solved, an empty list otherwise
+     */
+    public List<Board.Move> getSolution() {
+        return solution;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the metrics of the solve, empty if the solver had no {@link SolverListener}
+     */
+    public Optional<SolverMetrics> getMetrics() {
+        return Optional.ofNullable(metrics);
+    }
+
+    @Override
+    public String toString() {
+        return "SolverResult{" +
+                "status=" + status +
+                ", moves=" + solution.size() +
+                ", iterations=" + iterations +
+                ", duration=" + duration +
+                '}';
+    }
+}
@@ -0,0 +1,66 @@
+package net.marvk.sigmarsgarden;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Time spent in each {@link Stage} of the games played by a {@link BoardRobot}. Stages run one after another, so a
+ * single clock is lapped at the end of every stage.
+ */
+public class StageTimings {
+    public enum Stage {
+        NEW_GAME,
+        CAPTURE,
+        READ,
+        SOLVE,
+        EXECUTE
+    }
+
+    private final Map<Stage, Long> nanos = new EnumMap<>(Stage.class);
+
+    private long lapStart = System.nanoTime();
+
+    /**
+     * Records the time since the previous lap, or since the timings were created, as time spent in the stage
+     */
+    public void lap(final Stage stage) {
+        final long now = System.nanoTime();
+        nanos.merge(stage, now - lapStart, Long::sum);
+        lapStart = now;
+    }
+
+    public void add(final StageTimings other) {
+        other.nanos.forEach((stage, value) -> nanos.merge(stage, value, Long::sum));
+    }
+
+    public Duration get(final Stage stage) {
+        return Duration.ofNanos(nanos.getOrDefault(stage, 0L));
+    }
+
+    /**
+     * @return the stage that took the longest, or {@code null} if nothing was recorded yet
+     */
+    public Stage getDominant() {
+        return nanos.entrySet()
+                    .stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder("StageTimings{");
+
+        for (final Stage stage : Stage.values()) {
+            result.append(stage == Stage.NEW_GAME ? "" : ", ")
+                  .append(stage)
+                  .append('=')
+                  .append(get(stage).toMillis())
+                  .append("ms");
+        }
+
+        return result.append(", dominant=").append(getDominant()).append('}').toString();
+    }
+}
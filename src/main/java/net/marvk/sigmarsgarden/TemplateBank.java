@@ -0,0 +1,86 @@
+package net.marvk.sigmarsgarden;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * The inactive and active template of every {@link Tile}, preprocessed once so that comparisons only have to
+ * preprocess the captured tile.
+ * <p>
+ * Every template also has a signature, the mean and standard deviation of its pixels before preprocessing. Signatures
+ * are cheap to compute for a captured tile and rank the templates by how likely they are to match it.
+ */
+class TemplateBank {
+    private final Tile[] tiles;
+    private final Mat[] templates;
+    private final double[] means;
+    private final double[] deviations;
+
+    /**
+     * @param preprocessing the preprocessing applied to every template, the same has to be applied to captured tiles
+     */
+    TemplateBank(final UnaryOperator<Mat> preprocessing) {
+        final Tile[] values = Tile.values();
+
+        this.tiles = new Tile[values.length * 2];
+        this.templates = new Mat[values.length * 2];
+        this.means = new double[values.length * 2];
+        this.deviations = new double[values.length * 2];
+
+        final MatOfDouble mean = new MatOfDouble();
+        final MatOfDouble deviation = new MatOfDouble();
+
+        for (int i = 0; i < templates.length; i++) {
+            final Tile tile = values[i / 2];
+            final Mat template = i % 2 == 0 ? tile.getInactiveMat() : tile.getActiveMat();
+
+            Core.meanStdDev(template, mean, deviation);
+
+            tiles[i] = tile;
+            templates[i] = preprocessing.apply(template);
+            means[i] = mean.toArray()[0];
+            deviations[i] = deviation.toArray()[0];
+        }
+    }
+
+    int size() {
+        return templates.length;
+    }
+
+    Tile getTile(final int index) {
+        return tiles[index];
+    }
+
+    Mat getTemplate(final int index) {
+        return templates[index];
+    }
+
+    /**
+     * @return the indices of all templates, ordered by the distance of their signature to the given one. Ties keep
+     * the template order
+     */
+    int[] rank(final double mean, final double deviation) {
+        final int[] result = new int[templates.length];
+        final double[] distances = new double[templates.length];
+
+        for (int i = 0; i < templates.length; i++) {
+            final double distance = Math.hypot(means[i] - mean, deviations[i] - deviation);
+
+            int j = i;
+
+            while (j > 0 && distances[j - 1] > distance) {
+                distances[j] = distances[j - 1];
+                result[j] = result[j - 1];
+                j--;
+            }
+
+            distances[j] = distance;
+            result[j] = i;
+        }
+
+        return result;
+    }
+}
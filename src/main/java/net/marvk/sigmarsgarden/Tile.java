@@ -8,38 +8,40 @@ import java.nio.file.Paths;
 import java.util.Locale;
 
 public enum Tile {
-    EMPTY(36, null),
+    EMPTY('.', 36, null),
 
-    FIRE(8, null),
-    AIR(8, null),
-    EARTH(8, null),
-    WATER(8, null),
+    FIRE('F', 8, null),
+    AIR('A', 8, null),
+    EARTH('E', 8, null),
+    WATER('W', 8, null),
 
-    SALT(4, null),
+    SALT('S', 4, null),
 
-    UNIVERSAL(2, null),
+    UNIVERSAL('U', 2, null),
 
-    QUICKSILVER(5, null),
+    QUICKSILVER('Q', 5, null),
 
-    VITAE(3, null),
-    MORS(3, null),
+    VITAE('V', 3, null),
+    MORS('M', 3, null),
 
-    LEAD(1, null),
-    TIN(1, LEAD),
-    IRON(1, TIN),
-    COPPER(1, IRON),
-    SILVER(1, COPPER),
-    GOLD(1, SILVER);
+    LEAD('l', 1, null),
+    TIN('t', 1, LEAD),
+    IRON('i', 1, TIN),
+    COPPER('c', 1, IRON),
+    SILVER('s', 1, COPPER),
+    GOLD('g', 1, SILVER);
 
     private final BufferedImage inactive;
     private final BufferedImage active;
 
     private final Mat inactiveMat;
     private final Mat activeMat;
+    private final char symbol;
     private final int amount;
     private final Tile requirement;
 
-    Tile(final int amount, final Tile requirement) {
+    Tile(final char symbol, final int amount, final Tile requirement) {
+        this.symbol = symbol;
         this.amount = amount;
         this.requirement = requirement;
 
@@ -77,6 +79,23 @@ public enum Tile {
         return amount;
     }
 
+    /**
+     * @return the character representing this tile in text board files
+     */
+    public char getSymbol() {
+        return symbol;
+    }
+
+    public static Tile fromSymbol(final char symbol) {
+        for (final Tile tile : values()) {
+            if (tile.symbol == symbol) {
+                return tile;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown tile symbol '%s'".formatted(symbol));
+    }
+
     private BufferedImage readTileImage(final int id) throws IOException {
         final String name = name().toLowerCase(Locale.ROOT);
         return ImageUtil.loadImageMonochrome(Paths.get("tiles/%s_%d.png".formatted(name, id)));
@@ -0,0 +1,178 @@
+package net.marvk.sigmarsgarden;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Fixed size set of board hashes backed by a single {@code long[]}.
+ * <p>
+ * Entries are two {@code long}s, the key and a data word holding the generation the entry was stored in and the number
+ * of tiles left on the board. Keys are placed with open addressing into buckets of {@value #BUCKET_SIZE} entries. Only
+ * entries of the current generation are hits, so a table can be reused across solves without clearing it. When a bucket
+ * is full, entries from older generations are replaced first, then entries with the fewest tiles left, since those
+ * guard the smallest subtrees.
+ * <p>
+ * The table may be shared between threads without locking. The key is stored XORed with its data word, so an entry
+ * torn by concurrent writers no longer matches its key and reads as a miss. Racing writers may lose entries, which only
+ * costs a re-search.
+ */
+public class TranspositionTable {
+    public static final long DEFAULT_BYTES = 32L * 1024 * 1024;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int BUCKET_SIZE = 4;
+    private static final int ENTRY_LONGS = 2;
+    private static final int ENTRY_BYTES = ENTRY_LONGS * Long.BYTES;
+
+    private static final long EMPTY = 0L;
+    private static final long EMPTY_SUBSTITUTE = 0x9E37_79B9_7F4A_7C15L;
+
+    private final long[] table;
+    private final int entryMask;
+
+    private volatile int generation = 0;
+
+    /**
+     * @param bytes the memory budget of the table, rounded down to the next power of two number of entries
+     */
+    public TranspositionTable(final long bytes) {
+        final long entries = Math.max(BUCKET_SIZE, bytes / ENTRY_BYTES);
+        final int capacity = Integer.highestOneBit((int) Math.min(entries, Integer.MAX_VALUE / ENTRY_LONGS));
+
+        this.table = new long[capacity * ENTRY_LONGS];
+        this.entryMask = capacity - 1;
+    }
+
+    public TranspositionTable() {
+        this(DEFAULT_BYTES);
+    }
+
+    /**
+     * Starts a new generation. Entries of previous generations no longer match and are replaced first
+     */
+    public void nextGeneration() {
+        generation++;
+    }
+
+    /**
+     * @return whether the hash was stored in the current generation
+     */
+    public boolean contains(final long hash) {
+        final long key = key(hash);
+        final int bucket = bucket(key);
+        final int generation = this.generation;
+
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            final int slot = slot(bucket, i);
+            final long data = data(slot);
+
+            if (data == EMPTY) {
+                return false;
+            }
+
+            if ((storedKey(slot) ^ data) == key) {
+                return data >>> 32 == generation;
+            }
+        }
+
+        return false;
+    }
+
+    public void put(final long hash, final int numTiles) {
+        final long key = key(hash);
+        final int bucket = bucket(key);
+        final int generation = this.generation;
+        final long data = data(generation, numTiles);
+
+        int victim = slot(bucket, 0);
+        long victimData = data(victim);
+
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            final int slot = slot(bucket, i);
+            final long current = data(slot);
+
+            if (current == EMPTY || (storedKey(slot) ^ current) == key) {
+                victim = slot;
+                break;
+            }
+
+            if (compare(generation, current, victimData) < 0) {
+                victim = slot;
+                victimData = current;
+            }
+        }
+
+        SLOTS.setOpaque(table, victim, key ^ data);
+        SLOTS.setOpaque(table, victim + 1, data);
+    }
+
+    /**
+     * Must not be called while other threads use the table
+     */
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * @return the number of stored entries, only exact while no other thread writes to the table
+     */
+    public int size() {
+        int result = 0;
+
+        for (int slot = 0; slot < table.length; slot += ENTRY_LONGS) {
+            if (data(slot) != EMPTY) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    public int capacity() {
+        return entryMask + 1;
+    }
+
+    private long storedKey(final int slot) {
+        return (long) SLOTS.getOpaque(table, slot);
+    }
+
+    private long data(final int slot) {
+        return (long) SLOTS.getOpaque(table, slot + 1);
+    }
+
+    private static int compare(final int generation, final long data1, final long data2) {
+        final int generationCompare = Integer.compare(age(generation, data2), age(generation, data1));
+
+        if (generationCompare != 0) {
+            return generationCompare;
+        }
+
+        return Integer.compare(numTiles(data1), numTiles(data2));
+    }
+
+    private static int age(final int generation, final long data) {
+        return generation - (int) (data >>> 32);
+    }
+
+    private static int numTiles(final long data) {
+        return (int) data;
+    }
+
+    private static long data(final int generation, final int numTiles) {
+        return ((long) generation << 32) | (numTiles & 0xFFFF_FFFFL);
+    }
+
+    private static long key(final long hash) {
+        return hash == EMPTY ? EMPTY_SUBSTITUTE : hash;
+    }
+
+    private int bucket(final long key) {
+        return (int) (key ^ (key >>> 32)) & entryMask;
+    }
+
+    private int slot(final int bucket, final int i) {
+        return ((bucket + i) & entryMask) * ENTRY_LONGS;
+    }
+}
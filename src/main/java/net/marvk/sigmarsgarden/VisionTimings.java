@@ -0,0 +1,43 @@
+package net.marvk.sigmarsgarden;
+
+import java.time.Duration;
+
+/**
+ * Time spent in each phase of a {@link BoardVision#readBoard(java.awt.image.BufferedImage)}
+ */
+public class VisionTimings {
+    private final long convertNanos;
+    private final long splitNanos;
+    private final long matchNanos;
+
+    VisionTimings(final long convertNanos, final long splitNanos, final long matchNanos) {
+        this.convertNanos = convertNanos;
+        this.splitNanos = splitNanos;
+        this.matchNanos = matchNanos;
+    }
+
+    public Duration getConvert() {
+        return Duration.ofNanos(convertNanos);
+    }
+
+    public Duration getSplit() {
+        return Duration.ofNanos(splitNanos);
+    }
+
+    public Duration getMatch() {
+        return Duration.ofNanos(matchNanos);
+    }
+
+    public Duration getTotal() {
+        return Duration.ofNanos(convertNanos + splitNanos + matchNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "VisionTimings{" +
+                "convertMillis=" + convertNanos / 1_000_000 +
+                ", splitMillis=" + splitNanos / 1_000_000 +
+                ", matchMillis=" + matchNanos / 1_000_000 +
+                '}';
+    }
+}
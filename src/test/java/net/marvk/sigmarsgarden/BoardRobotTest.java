@@ -0,0 +1,53 @@
+package net.marvk.sigmarsgarden;
+
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardRobotTest {
+    @BeforeAll
+    static void loadOpenCV() {
+        OpenCV.loadLocally();
+    }
+
+    @Test
+    void repairsConfidentMisreads() {
+        final Board deal = new DealGenerator(5).next();
+        final BufferedImage screen = ImageUtil.monochrome(ImageUtil.toImage(BoardVisionTest.tiles(deal)));
+        final BoardRobot robot = new BoardRobot(bounds -> screen.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height), null, null, false);
+
+        final BoardReading reading = new BoardVision().read(screen);
+        final Hex water = find(deal, Tile.WATER);
+        final Hex fire = find(deal, Tile.FIRE);
+
+        // Water read as fire and fire read as earth, both with a margin no correct read reaches. Neither is among the
+        // least confident hexes, and at first only earth occurs too often
+        final BoardReading forced = reading.with(water, new Classification(Tile.FIRE, 1, 1, 1))
+                                           .with(fire, new Classification(Tile.EARTH, 1, 1, 1));
+
+        assertFalse(forced.isValid());
+        assertFalse(forced.leastConfident(8).contains(water));
+        assertFalse(forced.overCounted().contains(water));
+
+        final BoardReading repaired = robot.repair(forced);
+
+        assertTrue(repaired.isValid(), repaired.describeMismatches());
+        assertEquals(BoardFormat.format(deal), BoardFormat.format(repaired.getBoard()));
+    }
+
+    private static Hex find(final Board board, final Tile tile) {
+        for (int index = 0; index < Hex.COUNT; index++) {
+            if (board.get(index) == tile) {
+                return Hex.fromIndex(index);
+            }
+        }
+
+        throw new IllegalArgumentException("No %s on the board".formatted(tile));
+    }
+}
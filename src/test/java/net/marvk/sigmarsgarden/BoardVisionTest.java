@@ -0,0 +1,129 @@
+package net.marvk.sigmarsgarden;
+
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardVisionTest {
+    @BeforeAll
+    static void loadOpenCV() {
+        OpenCV.loadLocally();
+    }
+
+    @Test
+    void adjustMatchesPerPixelContrast() throws IOException {
+        final List<Path> tiles = tileImages();
+
+        assertFalse(tiles.isEmpty());
+
+        for (final Path tile : tiles) {
+            final Mat input = ImageUtil.bufferedImageToMat(ImageUtil.loadImageMonochrome(tile));
+
+            assertArrayEquals(bytes(perPixelAdjust(input)), bytes(BoardVision.adjust(input)), tile.toString());
+        }
+    }
+
+    @Test
+    void tellsEmptyTilesFromEveryOtherTile() throws IOException {
+        final BoardVision vision = new BoardVision();
+        final List<Path> tiles = tileImages();
+
+        assertFalse(tiles.isEmpty());
+
+        for (final Path tile : tiles) {
+            final boolean empty = tile.getFileName().toString().startsWith("empty_");
+
+            assertEquals(empty, vision.isEmptyTile(ImageUtil.loadImageMonochrome(tile)), tile.toString());
+        }
+    }
+
+    @Test
+    void readsRenderedDealsExactly() {
+        final DealGenerator generator = new DealGenerator(1);
+        final BoardVision vision = new BoardVision();
+
+        for (int i = 0; i < 5; i++) {
+            final Board deal = generator.next();
+            final BufferedImage screen = ImageUtil.monochrome(ImageUtil.toImage(tiles(deal)));
+            final Rectangle bounds = ImageUtil.BOARD_BOUNDS;
+
+            final BoardReading fullScreen = vision.read(screen);
+            final BoardReading boardRegion = vision.read(screen.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height));
+
+            assertTrue(fullScreen.isValid(), fullScreen.describeMismatches());
+            assertEquals(BoardFormat.format(deal), BoardFormat.format(fullScreen.getBoard()));
+            assertEquals(BoardFormat.format(deal), BoardFormat.format(boardRegion.getBoard()));
+        }
+    }
+
+    private static List<Path> tileImages() throws IOException {
+        try (final Stream<Path> paths = Files.list(Paths.get("tiles"))) {
+            return paths.filter(path -> path.toString().endsWith(".png")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * The contrast adjustment as it was applied before the lookup table, one {@link Mat#get(int, int)} and
+     * {@link Mat#put(int, int, double...)} per pixel
+     */
+    private static Mat perPixelAdjust(final Mat input) {
+        final Mat equalized = new Mat(input.rows(), input.cols(), input.type());
+
+        Imgproc.equalizeHist(input, equalized);
+
+        for (int j = 0; j < equalized.rows(); j++) {
+            for (int i = 0; i < equalized.cols(); i++) {
+                final double[] pixel = equalized.get(j, i);
+
+                pixel[0] = clamp(0, 255, 255 - Math.pow((Math.max(230 - pixel[0], 0)), 1.1));
+                pixel[0] = clamp(0, 255, 255 - Math.pow((Math.max(255 - pixel[0], 0)), 1.1));
+                pixel[0] = clamp(0, 255, 255 - Math.pow((Math.max(255 - pixel[0], 0)), 1.1));
+
+                equalized.put(j, i, pixel);
+            }
+        }
+
+        return equalized;
+    }
+
+    private static double clamp(final double min, final double max, final double value) {
+        return Math.max(Math.min(value, max), min);
+    }
+
+    static Tile[][] tiles(final Board board) {
+        final Tile[][] result = new Tile[Hex.ROWS][];
+
+        for (int y = 0; y < Hex.ROWS; y++) {
+            result[y] = new Tile[Hex.rowLength(y)];
+
+            for (int x = 0; x < result[y].length; x++) {
+                result[y][x] = board.get(Hex.fromArrayCoords(x, y));
+            }
+        }
+
+        return result;
+    }
+
+    private static byte[] bytes(final Mat mat) {
+        final byte[] result = new byte[(int) mat.total() * mat.channels()];
+        mat.get(0, 0, result);
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package net.marvk.sigmarsgarden;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealGeneratorTest {
+    private static final SolverBudget BUDGET = SolverBudget.unlimited().withNodes(1_000_000);
+
+    @Test
+    void mainWritesDeals(@TempDir final Path directory) throws Exception {
+        final Path output = directory.resolve("deals.txt.gz");
+
+        DealGenerator.main(new String[]{"1", "3", output.toString()});
+
+        assertEquals(3, BoardFormat.read(output).size());
+    }
+
+    @Test
+    void dealsHaveTheTileDistributionOfTheGame() {
+        final DealGenerator generator = new DealGenerator(2, false);
+
+        for (int i = 0; i < 10; i++) {
+            final Board deal = generator.next();
+
+            for (final Tile tile : Tile.values()) {
+                assertEquals(tile.getAmount(), deal.count(tile), tile.name());
+            }
+        }
+    }
+
+    @Test
+    void solvableDealsAreSolved() throws InterruptedException {
+        final DealGenerator generator = new DealGenerator(3);
+
+        for (int i = 0; i < 10; i++) {
+            final Board deal = generator.next();
+            final SolverResult result = new BoardSolver(new TranspositionTable(), 1, MoveOrdering.heuristic()).solve(deal.copy(), BUDGET);
+
+            assertTrue(result.isSolved(), "deal %d: %s".formatted(i, result.getStatus()));
+
+            final List<Board.Move> solution = result.getSolution();
+
+            for (final Board.Move move : solution) {
+                deal.doMove(deal.new Move(move.getHexes()));
+            }
+
+            assertTrue(deal.isSolved(), "deal %d".formatted(i));
+        }
+    }
+
+    @Test
+    void sameSeedGeneratesSameDeals() {
+        final DealGenerator generator1 = new DealGenerator(4);
+        final DealGenerator generator2 = new DealGenerator(4);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(BoardFormat.format(generator1.next()), BoardFormat.format(generator2.next()));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package net.marvk.sigmarsgarden;
+
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.GraphicsEnvironment;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameSimulatorTest {
+    private static final int GAMES = 2;
+
+    @BeforeAll
+    static void loadOpenCV() {
+        System.setProperty("java.awt.headless", "true");
+        OpenCV.loadLocally();
+    }
+
+    @Test
+    void robotClearsSimulatedDeals(@TempDir final Path directory) throws Exception {
+        assertTrue(GraphicsEnvironment.isHeadless());
+
+        final GameSimulator simulator = new GameSimulator(1);
+
+        try (final SolutionCache solutionCache = SolutionCache.open(directory.resolve("solutions.cache"))) {
+            new BoardRobot(simulator, simulator, solutionCache, false).solve(GAMES);
+        }
+
+        assertEquals(GAMES, simulator.getDealt());
+        assertEquals(GAMES, simulator.getSolved());
+    }
+}